@@ -0,0 +1,46 @@
+package org.temire.inventory.service.data.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.temire.inventory.service.data.dto.OrderProduct;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderTotalBenchmark {
+
+    @Param({"1", "20", "200"})
+    int items;
+
+    private Order order;
+
+    @Setup
+    public void setUp() {
+        List<OrderProduct> lines = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            lines.add(new OrderProduct("product-" + i, "name", "description", 10.5 + i, 1 + i % 3));
+        }
+        order = new Order("order", lines, 0.0, null, null, null, null, null, null, false);
+    }
+
+    @Benchmark
+    public double computeTotal() {
+        return order.computeTotal();
+    }
+}
@@ -0,0 +1,85 @@
+package org.temire.inventory.service.kafka.producer;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.temire.inventory.service.data.dto.OrderProduct;
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.kafka.serialization.OrderSerializer;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side cost of KafkaProducer.sendMessage: permit handling, keying, the template and record
+ * serialization. The broker is a MockProducer that acknowledges immediately.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class KafkaProducerSendBenchmark {
+
+    @Param({"binary", "json"})
+    String format;
+
+    @Param({"1", "20"})
+    int items;
+
+    private MockProducer<String, Order> producer;
+    private KafkaProducer kafkaProducer;
+    private Order order;
+    private int sent;
+
+    @Setup
+    public void setUp() {
+        // Without a logback config every acknowledgement would be logged at DEBUG.
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+        OrderSerializer serializer = new OrderSerializer();
+        serializer.configure(Map.of(OrderSerializer.FORMAT_CONFIG, format), false);
+        producer = new MockProducer<>(true, new StringSerializer(), serializer) {
+            @Override
+            public void close(Duration timeout) {
+                // KafkaTemplate closes its producer after every send; keep this one open.
+            }
+        };
+        kafkaProducer = new KafkaProducer(new KafkaTemplate<>(() -> producer), "make_order", 1000,
+                Duration.ofMillis(100), "order_id", new SimpleMeterRegistry());
+        List<OrderProduct> lines = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            lines.add(new OrderProduct("63f1c0a2b4e5d6f7a8b9c0" + String.format("%02d", i), "Product " + i,
+                    "A reasonably sized product description", 10.5 + i, 1 + i % 3));
+        }
+        order = new Order("63f1c0a2b4e5d6f7a8b9c0ff", lines, 0.0, LocalDate.of(2023, 2, 1), null,
+                "1 Marina Road, Lagos", "Ada Obi", "ada@example.com", "+2348000000000", false);
+    }
+
+    @Benchmark
+    public SendResult<String, Order> sendMessage() {
+        // The mock keeps every record; dropping them keeps the heap flat across iterations.
+        if (++sent % 10_000 == 0) producer.clear();
+        return kafkaProducer.sendMessage(order).join();
+    }
+}
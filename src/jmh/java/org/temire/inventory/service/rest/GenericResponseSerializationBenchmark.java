@@ -0,0 +1,74 @@
+package org.temire.inventory.service.rest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.temire.inventory.service.data.model.Product;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of rendering the response envelope for a product listing, as a keyset page (list plus
+ * metadata) and as a counted Spring Data page.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenericResponseSerializationBenchmark {
+
+    @Param({"1", "20", "200"})
+    int products;
+
+    private ObjectWriter writer;
+    private GenericResponseDTO keysetPage;
+    private GenericResponseDTO countedPage;
+
+    @Setup
+    public void setUp() {
+        writer = new ObjectMapper().registerModule(new JavaTimeModule()).writerFor(GenericResponseDTO.class);
+        List<Product> content = new ArrayList<>();
+        for (int i = 0; i < products; i++) {
+            content.add(new Product("63f1c0a2b4e5d6f7a8b9c0" + String.format("%02d", i % 100), "Product " + i,
+                    "A reasonably sized product description", 10.5 + i, i * 3));
+        }
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("size", content.size());
+        metadata.put("has_next", true);
+        metadata.put("next_cursor", "MTJ8NjNmMWMwYTJiNGU1ZDZmN2E4YjljMDEy");
+        keysetPage = new GenericResponseDTO("00", HttpStatus.OK, "Search Completed", content, metadata);
+        countedPage = new GenericResponseDTO("00", HttpStatus.OK, "Search Completed",
+                new PageImpl<>(content, PageRequest.of(0, Math.max(1, products)), 10_000));
+    }
+
+    @Benchmark
+    public byte[] keysetPage() throws Exception {
+        return writer.writeValueAsBytes(keysetPage);
+    }
+
+    @Benchmark
+    public byte[] countedPage() throws Exception {
+        return writer.writeValueAsBytes(countedPage);
+    }
+}
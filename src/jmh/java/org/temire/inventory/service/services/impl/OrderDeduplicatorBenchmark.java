@@ -0,0 +1,63 @@
+package org.temire.inventory.service.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.temire.inventory.service.data.repositories.OrderReceiptRepository;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process cost the idempotency check adds to a first-time order, with the repository stubbed.
+ * The claim's upsert round trip to MongoDB comes on top of this and dominates it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderDeduplicatorBenchmark {
+
+    private OrderDeduplicator orderDeduplicator;
+    private String[] unseen;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        orderDeduplicator = new OrderDeduplicator(grantingRepository(), new SimpleMeterRegistry(), true, Duration.ofHours(24),
+                Duration.ofSeconds(30));
+        unseen = new String[4096];
+        for (int i = 0; i < unseen.length; i++) unseen[i] = "7a0b1c2d3e4f5061" + Integer.toHexString(i);
+    }
+
+    @Benchmark
+    public Optional<GenericResponseDTO> claimUnseenKey() {
+        return orderDeduplicator.claim(unseen[next++ & (unseen.length - 1)]);
+    }
+
+    // Grants every claim, so only the proxy call stands in for the round trip.
+    private static OrderReceiptRepository grantingRepository() {
+        return (OrderReceiptRepository) Proxy.newProxyInstance(OrderReceiptRepository.class.getClassLoader(),
+                new Class<?>[]{OrderReceiptRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "claim":
+                            return true;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
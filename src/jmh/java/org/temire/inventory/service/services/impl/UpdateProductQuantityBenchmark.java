@@ -0,0 +1,154 @@
+package org.temire.inventory.service.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.temire.inventory.service.cache.ProductAvailabilityIndex;
+import org.temire.inventory.service.cache.ProductCache;
+import org.temire.inventory.service.data.model.Product;
+import org.temire.inventory.service.data.repositories.ProductRepository;
+import org.temire.inventory.service.kafka.producer.LowStockProducer;
+
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service-side cost of a stock decrement (validation, conditional update, cache refresh) with the
+ * database replaced by an in-memory map that applies the same quantity guard atomically per product.
+ * skus=1 puts every thread on the same product. hot=true sends every decrement through the
+ * HotStockLedger instead; the map stands in for MongoDB there too, so the gain shown is only the
+ * part that does not depend on the network.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UpdateProductQuantityBenchmark {
+
+    private static final int STOCK = 1_000_000_000;
+
+    @Param({"1", "1024"})
+    int skus;
+
+    @Param({"false", "true"})
+    boolean hot;
+
+    private ConcurrentHashMap<String, Product> store;
+    private String[] ids;
+    private ProductServiceImpl productService;
+    private HotStockLedger hotStockLedger;
+    private Path journal;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        store = new ConcurrentHashMap<>();
+        ids = new String[skus];
+        for (int i = 0; i < skus; i++) {
+            ids[i] = "product-" + i;
+            store.put(ids[i], new Product(ids[i], "name", "description", 1.0, STOCK));
+        }
+        ProductRepository repository = inMemoryRepository(store);
+        ProductCache productCache = new ProductCache(10_000, Duration.ofMinutes(1));
+        journal = Files.createTempFile("hot-stock", ".journal");
+        LowStockProducer lowStockProducer = new LowStockProducer(new KafkaProperties(), "low_stock", false, new SimpleMeterRegistry());
+        hotStockLedger = new HotStockLedger(repository, productCache, lowStockProducer, new SimpleMeterRegistry(), hot, ids,
+                10_000, journal.toString());
+        hotStockLedger.open();
+        productService = new ProductServiceImpl(repository, null, productCache, new ProductAvailabilityIndex(),
+                new OrderPricer(repository, productCache), null, lowStockProducer, hotStockLedger, null, false, 1000);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        hotStockLedger.close();
+        Files.deleteIfExists(journal);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void threads1() {
+        decrement();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void threads8() {
+        decrement();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void threads64() {
+        decrement();
+    }
+
+    private void decrement() {
+        productService.updateProductQuantity(ids[ThreadLocalRandom.current().nextInt(ids.length)], 1);
+    }
+
+    // Only the methods updateProductQuantity reaches are backed; anything else fails loudly.
+    private static ProductRepository inMemoryRepository(ConcurrentHashMap<String, Product> store) {
+        return (ProductRepository) Proxy.newProxyInstance(ProductRepository.class.getClassLoader(),
+                new Class<?>[]{ProductRepository.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "decrementQuantity":
+                            return apply(store, (String) args[0], (Integer) args[1], -(Integer) args[1], 0);
+                        case "incrementQuantity":
+                            return apply(store, (String) args[0], 0, (Integer) args[1], 0);
+                        case "escrow":
+                            return apply(store, (String) args[0], (Integer) args[1], 0, (Integer) args[1]).isPresent();
+                        case "settle": {
+                            int sold = (Integer) args[1];
+                            return apply(store, (String) args[0], 0, -sold, -(sold + (Integer) args[2]));
+                        }
+                        case "existsById":
+                            return store.containsKey((String) args[0]);
+                        case "findById":
+                            return Optional.ofNullable(store.get((String) args[0]));
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        case "toString":
+                            return "InMemoryProductRepository";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    // Applies the deltas only while at least free units are outside the escrow, like the guarded update.
+    private static Optional<Product> apply(ConcurrentHashMap<String, Product> store, String id, int free, int quantity, int held) {
+        Product[] updated = new Product[1];
+        store.computeIfPresent(id, (key, current) -> {
+            int escrowed = current.getHot_held() == null ? 0 : current.getHot_held();
+            if (current.getQuantity() - escrowed < free) return current;
+            updated[0] = new Product(key, current.getName(), current.getDescription(), current.getPrice(),
+                    current.getQuantity() + quantity, null, null, escrowed + held, null);
+            return updated[0];
+        });
+        return Optional.ofNullable(updated[0]);
+    }
+}
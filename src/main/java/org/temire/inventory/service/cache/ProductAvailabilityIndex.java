@@ -0,0 +1,114 @@
+package org.temire.inventory.service.cache;
+
+import org.springframework.stereotype.Component;
+import org.temire.inventory.service.data.model.Product;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory copy of the catalog ordered by (quantity, product_id), the same order as the
+ * quantity_id index, kept current by ProductChangeStreamListener. Reads only use it while
+ * isReady(); otherwise they go to MongoDB. Entries are shared, like the ProductCache ones.
+ */
+@Component
+public class ProductAvailabilityIndex {
+
+    private final ConcurrentSkipListMap<StockKey, Product> byStock = new ConcurrentSkipListMap<>();
+    private final Map<String, StockKey> keys = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized void load(Iterator<Product> products) {
+        ready = false;
+        byStock.clear();
+        keys.clear();
+        products.forEachRemaining(this::put);
+        ready = true;
+    }
+
+    // Until the next load() the index may have missed changes, so readers fall back to MongoDB.
+    public void invalidate() {
+        ready = false;
+    }
+
+    public synchronized void put(Product product) {
+        StockKey previous = keys.remove(product.getProduct_id());
+        if (previous != null) byStock.remove(previous);
+        // A missing quantity never matches a quantity filter in MongoDB either.
+        if (product.getQuantity() == null) return;
+        StockKey key = new StockKey(product.getQuantity(), product.getProduct_id());
+        keys.put(product.getProduct_id(), key);
+        byStock.put(key, product);
+    }
+
+    public synchronized void remove(String product_id) {
+        StockKey previous = keys.remove(product_id);
+        if (previous != null) byStock.remove(previous);
+    }
+
+    // Same contract as ProductRepository.findWithCondition, in (quantity, product_id) order.
+    public List<Product> findAvailable(int minQuantity, long offset, int limit) {
+        List<Product> page = new ArrayList<>(limit);
+        Iterator<Product> products = byStock.tailMap(new StockKey(minQuantity, null), true).values().iterator();
+        for (long skipped = 0; skipped < offset && products.hasNext(); skipped++) products.next();
+        while (page.size() < limit && products.hasNext()) page.add(products.next());
+        return page;
+    }
+
+    // Same contract as ProductRepositoryCustom.findAvailablePageAfter.
+    public List<Product> findAvailablePageAfter(int minQuantity, Integer quantity, String product_id, int limit) {
+        NavigableMap<StockKey, Product> tail = quantity == null || quantity < minQuantity
+                ? byStock.tailMap(new StockKey(minQuantity, null), true)
+                : byStock.tailMap(new StockKey(quantity, product_id), false);
+        List<Product> page = new ArrayList<>(limit);
+        for (Product product : tail.values()) {
+            if (page.size() == limit) break;
+            page.add(product);
+        }
+        return page;
+    }
+
+    public int size() {
+        return keys.size();
+    }
+
+    private static final class StockKey implements Comparable<StockKey> {
+
+        final int quantity;
+        final String product_id;
+
+        StockKey(int quantity, String product_id) {
+            this.quantity = quantity;
+            this.product_id = product_id;
+        }
+
+        // A null id sorts before every product with the same quantity, so it can start a range.
+        @Override
+        public int compareTo(StockKey other) {
+            int byQuantity = Integer.compare(quantity, other.quantity);
+            if (byQuantity != 0) return byQuantity;
+            if (product_id == null) return other.product_id == null ? 0 : -1;
+            if (other.product_id == null) return 1;
+            return product_id.compareTo(other.product_id);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StockKey && compareTo((StockKey) o) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * quantity + (product_id == null ? 0 : product_id.hashCode());
+        }
+    }
+}
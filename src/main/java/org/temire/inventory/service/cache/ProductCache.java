@@ -0,0 +1,89 @@
+package org.temire.inventory.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.temire.inventory.service.data.model.Product;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Read-through cache for single product lookups. Entries are shared between callers,
+ * so anything that modifies a product must load it from the repository instead.
+ */
+@Component
+public class ProductCache {
+
+    private final Cache<String, Product> cache;
+
+    public ProductCache(@Value("${inventory.cache.product.max-size:10000}") long maxSize,
+                        @Value("${inventory.cache.product.ttl:30s}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public Optional<Product> get(String product_id, Function<String, Optional<Product>> loader) {
+        if (product_id == null) return Optional.empty();
+        return Optional.ofNullable(cache.get(product_id, id -> loader.apply(id).orElse(null)));
+    }
+
+    // Every id that is not cached goes to the loader in one call, so a cart costs at most one query.
+    // Ids the loader does not return are left out of the result.
+    public Map<String, Product> getAll(Collection<String> product_ids, Function<List<String>, Iterable<Product>> loader) {
+        return cache.getAll(product_ids, missing -> {
+            List<String> ids = new ArrayList<>();
+            missing.forEach(ids::add);
+            Map<String, Product> loaded = new HashMap<>();
+            for (Product product : loader.apply(ids)) loaded.put(product.getProduct_id(), product);
+            return loaded;
+        });
+    }
+
+    // For callers that cannot block on a loader; a miss is still recorded in the stats.
+    public Optional<Product> getIfPresent(String product_id) {
+        if (product_id == null) return Optional.empty();
+        return Optional.ofNullable(cache.getIfPresent(product_id));
+    }
+
+    public void put(Product product) {
+        if (product != null && product.getProduct_id() != null) cache.put(product.getProduct_id(), product);
+    }
+
+    // Only replaces an entry that is already cached, so pushed changes do not fill the cache.
+    public void refresh(Product product) {
+        if (product != null && product.getProduct_id() != null)
+            cache.asMap().computeIfPresent(product.getProduct_id(), (id, cached) -> product);
+    }
+
+    public void invalidate(String product_id) {
+        if (product_id != null) cache.invalidate(product_id);
+    }
+
+    public void invalidateAll(Iterable<String> product_ids) {
+        cache.invalidateAll(product_ids);
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hit_rate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+}
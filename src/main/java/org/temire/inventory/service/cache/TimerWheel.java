@@ -0,0 +1,75 @@
+package org.temire.inventory.service.cache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timer wheel. A timer goes into the bucket its deadline's tick hashes to, and advance()
+ * only visits the buckets the clock has moved past, so expiring timers costs in proportion to the
+ * timers that are due, not to how many are pending. Timers more than one revolution away stay in
+ * their bucket until the round that is theirs.
+ */
+public class TimerWheel<T> {
+
+    private final long tickMillis;
+    private final List<Timer<T>>[] buckets;
+    private final int mask;
+    private long processedTick;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimerWheel(Duration tick, int bucketCount, long nowMillis) {
+        if (Integer.bitCount(bucketCount) != 1) throw new IllegalArgumentException("bucketCount must be a power of two");
+        this.tickMillis = tick.toMillis();
+        this.buckets = new List[bucketCount];
+        for (int i = 0; i < bucketCount; i++) buckets[i] = new ArrayList<>();
+        this.mask = bucketCount - 1;
+        this.processedTick = nowMillis / tickMillis;
+    }
+
+    public synchronized void schedule(T value, long deadlineMillis) {
+        // A deadline in a tick already processed fires on the next advance.
+        long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, processedTick + 1);
+        buckets[(int) (tick & mask)].add(new Timer<>(value, deadlineMillis));
+    }
+
+    // Fires outside the lock, so the callback may schedule again.
+    public void advance(long nowMillis, Consumer<T> fire) {
+        List<T> due = new ArrayList<>();
+        synchronized (this) {
+            long nowTick = nowMillis / tickMillis;
+            long from = Math.max(processedTick + 1, nowTick - buckets.length + 1);
+            for (long tick = from; tick <= nowTick; tick++) {
+                Iterator<Timer<T>> timers = buckets[(int) (tick & mask)].iterator();
+                while (timers.hasNext()) {
+                    Timer<T> timer = timers.next();
+                    if (timer.deadlineMillis <= nowMillis) {
+                        due.add(timer.value);
+                        timers.remove();
+                    }
+                }
+            }
+            processedTick = Math.max(processedTick, nowTick);
+        }
+        due.forEach(fire);
+    }
+
+    public synchronized int size() {
+        int size = 0;
+        for (List<Timer<T>> bucket : buckets) size += bucket.size();
+        return size;
+    }
+
+    private static final class Timer<T> {
+
+        final T value;
+        final long deadlineMillis;
+
+        Timer(T value, long deadlineMillis) {
+            this.value = value;
+            this.deadlineMillis = deadlineMillis;
+        }
+    }
+}
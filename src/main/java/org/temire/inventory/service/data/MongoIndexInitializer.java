@@ -0,0 +1,51 @@
+package org.temire.inventory.service.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Creates the indexes declared on the mapped documents once the application is up. Done here
+ * rather than through auto-index-creation so a slow or absent database does not stop startup.
+ */
+@Component
+public class MongoIndexInitializer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(MongoIndexInitializer.class);
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoIndexInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            ensureIndexes();
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Could not create MongoDB indexes: {}", ex.getMessage());
+        }
+    }
+
+    public void ensureIndexes() {
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                mongoTemplate.getConverter().getMappingContext();
+        IndexResolver resolver = new MongoPersistentEntityIndexResolver(mappingContext);
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(Document.class)) continue;
+            IndexOperations indexOps = mongoTemplate.indexOps(entity.getType());
+            resolver.resolveIndexFor(entity.getType()).forEach(indexOps::ensureIndex);
+        }
+    }
+}
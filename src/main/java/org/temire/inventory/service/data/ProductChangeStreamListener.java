@@ -0,0 +1,197 @@
+package org.temire.inventory.service.data;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+import org.temire.inventory.service.cache.ProductAvailabilityIndex;
+import org.temire.inventory.service.cache.ProductCache;
+import org.temire.inventory.service.data.model.ChangeStreamToken;
+import org.temire.inventory.service.data.model.Product;
+import org.temire.inventory.service.data.repositories.ChangeStreamTokenRepository;
+import org.temire.inventory.service.data.repositories.ProductRepository;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Follows the product collection's change stream and applies every insert, update, replace and
+ * delete, from any node, to the local ProductCache and ProductAvailabilityIndex. The resume token
+ * is stored per node, so a restarted node picks up the stream where it stopped. Change streams
+ * need a replica set, so the listener is off unless inventory.change-stream.enabled is set.
+ */
+@Component
+public class ProductChangeStreamListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductChangeStreamListener.class);
+    private static final int CHANGE_STREAM_FATAL_ERROR = 280;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final MongoTemplate mongoTemplate;
+    private final ProductRepository productRepository;
+    private final ChangeStreamTokenRepository changeStreamTokenRepository;
+    private final ProductCache productCache;
+    private final ProductAvailabilityIndex productAvailabilityIndex;
+    private final MeterRegistry meterRegistry;
+    private volatile boolean running;
+    private Thread worker;
+    // Only touched by the worker thread.
+    private BsonDocument resumeToken;
+
+    @Value("${inventory.change-stream.enabled:false}")
+    boolean enabled;
+
+    @Value("product:${inventory.change-stream.node-id:${HOSTNAME:localhost}}")
+    String tokenName;
+
+    @Value("${inventory.change-stream.token-save-interval:1s}")
+    Duration tokenSaveInterval;
+
+    @Value("${inventory.change-stream.retry-delay:5s}")
+    Duration retryDelay;
+
+    public ProductChangeStreamListener(MongoTemplate mongoTemplate, ProductRepository productRepository,
+                                       ChangeStreamTokenRepository changeStreamTokenRepository, ProductCache productCache,
+                                       ProductAvailabilityIndex productAvailabilityIndex, MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.productRepository = productRepository;
+        this.changeStreamTokenRepository = changeStreamTokenRepository;
+        this.productCache = productCache;
+        this.productAvailabilityIndex = productAvailabilityIndex;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) return;
+        running = true;
+        worker = new Thread(this::run, "product-change-stream");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (worker != null) worker.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void run() {
+        resumeToken = loadToken();
+        while (running) {
+            try {
+                listen();
+            } catch (MongoCommandException ex) {
+                if (ex.getErrorCode() == CHANGE_STREAM_HISTORY_LOST || ex.getErrorCode() == CHANGE_STREAM_FATAL_ERROR) {
+                    LOGGER.warn("Cannot resume the product change stream, restarting it from now: {}", ex.getMessage());
+                    resumeToken = null;
+                } else {
+                    LOGGER.warn("Product change stream failed: {}", ex.getMessage());
+                }
+            } catch (RuntimeException ex) {
+                LOGGER.warn("Product change stream failed: {}", ex.getMessage());
+            }
+            productAvailabilityIndex.invalidate();
+            if (running) pause();
+        }
+    }
+
+    private void listen() {
+        ChangeStreamIterable<Document> changes = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Product.class))
+                .watch(List.of(Aggregates.match(Filters.in("operationType", "insert", "update", "replace", "delete"))))
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeToken != null) changes = changes.resumeAfter(resumeToken);
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = changes.cursor()) {
+            // The stream is open before the catalog is read, so nothing written during the load is missed.
+            if (!productAvailabilityIndex.isReady()) {
+                try (Stream<Product> products = productRepository.streamAllBy()) {
+                    productAvailabilityIndex.load(products.iterator());
+                }
+                LOGGER.info("Loaded {} products into the availability index", productAvailabilityIndex.size());
+            }
+            long savedAt = System.nanoTime();
+            while (running) {
+                ChangeStreamDocument<Document> change = cursor.tryNext();
+                if (change != null) apply(change);
+                // Advances on an idle stream too, so a quiet collection does not leave an old token behind.
+                if (cursor.getResumeToken() != null) resumeToken = cursor.getResumeToken();
+                if (System.nanoTime() - savedAt >= tokenSaveInterval.toNanos()) {
+                    saveToken();
+                    savedAt = System.nanoTime();
+                }
+            }
+            saveToken();
+        }
+    }
+
+    void apply(ChangeStreamDocument<Document> change) {
+        meterRegistry.counter("inventory.change_stream.events", "operation", change.getOperationType().getValue()).increment();
+        Document document = change.getFullDocument();
+        // An update whose document was deleted before the lookup comes without one.
+        if (change.getOperationType() == OperationType.DELETE || document == null) {
+            String product_id = idOf(change.getDocumentKey());
+            productCache.invalidate(product_id);
+            productAvailabilityIndex.remove(product_id);
+            return;
+        }
+        Product product = mongoTemplate.getConverter().read(Product.class, document);
+        productCache.refresh(product);
+        productAvailabilityIndex.put(product);
+    }
+
+    private static String idOf(BsonDocument documentKey) {
+        BsonValue id = documentKey.get("_id");
+        if (id.isObjectId()) return id.asObjectId().getValue().toHexString();
+        if (id.isString()) return id.asString().getValue();
+        return id.toString();
+    }
+
+    private BsonDocument loadToken() {
+        try {
+            return changeStreamTokenRepository.findById(tokenName)
+                    .map(stored -> BsonDocument.parse(stored.getToken().toJson()))
+                    .orElse(null);
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Could not load the product change stream token: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    private void saveToken() {
+        if (resumeToken == null) return;
+        try {
+            changeStreamTokenRepository.save(new ChangeStreamToken(tokenName, Document.parse(resumeToken.toJson()), Instant.now()));
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Could not save the product change stream token: {}", ex.getMessage());
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(retryDelay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package org.temire.inventory.service.data;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.temire.inventory.service.CustomException;
+import org.temire.inventory.service.data.model.Product;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The product fields a listing asked for with fields=. Only these are read from MongoDB and
+ * serialized; product_id always comes back, since it is what a client addresses the product by.
+ */
+public final class ProductFields {
+
+    private static final List<String> NAMES = List.of("product_id", "name", "description", "price", "quantity",
+            "reorder_threshold", "reserved", "version");
+
+    private final Set<String> names;
+
+    private ProductFields(Set<String> names) {
+        this.names = names;
+    }
+
+    public static ProductFields parse(String fields) {
+        Set<String> requested = new LinkedHashSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (name.isEmpty()) continue;
+            if (!NAMES.contains(name))
+                throw new CustomException("Unknown product field " + name + ", use any of " + NAMES, HttpStatus.BAD_REQUEST);
+            requested.add(name);
+        }
+        return of(requested);
+    }
+
+    public static ProductFields of(Set<String> requested) {
+        Set<String> names = new LinkedHashSet<>();
+        for (String name : NAMES) {
+            if (name.equals("product_id") || requested.contains(name)) names.add(name);
+        }
+        return new ProductFields(names);
+    }
+
+    public ProductFields with(String name) {
+        Set<String> requested = new LinkedHashSet<>(names);
+        requested.add(name);
+        return of(requested);
+    }
+
+    // _id is always returned by MongoDB, so only the other fields are named.
+    public Query includeIn(Query query) {
+        for (String name : names) {
+            if (!name.equals("product_id")) query.fields().include(name);
+        }
+        return query;
+    }
+
+    // The raw documents bypass the entity mapping, so a sort on product_id has to name _id itself.
+    public static Sort toMongo(Sort sort) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (Sort.Order order : sort) {
+            orders.add(order.getProperty().equals("product_id") ? order.withProperty("_id") : order);
+        }
+        return Sort.by(orders);
+    }
+
+    // Products created through the API get an ObjectId, which the entity mapping would have read as its hex string.
+    public Document fromMongo(Document raw) {
+        Object id = raw.get("_id");
+        Document row = new Document("product_id", id instanceof ObjectId ? ((ObjectId) id).toHexString() : id);
+        for (String name : names) {
+            if (raw.containsKey(name)) row.put(name, raw.get(name));
+        }
+        return row;
+    }
+
+    // Rows served from memory get the same shape as the ones read from MongoDB.
+    public Document project(Product product) {
+        Document row = new Document();
+        for (String name : names) {
+            Object value = valueOf(product, name);
+            if (value != null) row.put(name, value);
+        }
+        return row;
+    }
+
+    private static Object valueOf(Product product, String name) {
+        switch (name) {
+            case "product_id": return product.getProduct_id();
+            case "name": return product.getName();
+            case "description": return product.getDescription();
+            case "price": return product.getPrice();
+            case "quantity": return product.getQuantity();
+            case "reorder_threshold": return product.getReorder_threshold();
+            case "reserved": return product.getReserved();
+            default: return product.getVersion();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.temire.inventory.service.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.temire.inventory.service.data.repositories.ProductRepository;
+
+/**
+ * Gives products stored before Product.version existed a version of 0 once the application is
+ * up. Idempotent, so every instance can run it on every start.
+ */
+@Component
+public class ProductVersionBackfill {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductVersionBackfill.class);
+
+    private final ProductRepository productRepository;
+
+    public ProductVersionBackfill(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            long backfilled = productRepository.backfillVersions();
+            if (backfilled > 0) LOGGER.info("Gave {} products a version", backfilled);
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Could not backfill product versions: {}", ex.getMessage());
+        }
+    }
+}
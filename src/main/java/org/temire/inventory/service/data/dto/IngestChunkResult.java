@@ -0,0 +1,21 @@
+package org.temire.inventory.service.data.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class IngestChunkResult implements Serializable {
+    int chunk;
+    int inserted;
+    int updated;
+    int failed;
+    List<String> failed_ids;
+}
@@ -0,0 +1,18 @@
+package org.temire.inventory.service.data.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.io.Serializable;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class LocationAllocation implements Serializable {
+    String product_id;
+    String location_id;
+    int quantity;
+}
@@ -0,0 +1,20 @@
+package org.temire.inventory.service.data.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class LowStockEvent implements Serializable {
+    String product_id;
+    int quantity;
+    int reorder_threshold;
+    Instant detected_at;
+}
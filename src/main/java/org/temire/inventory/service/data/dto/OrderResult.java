@@ -0,0 +1,20 @@
+package org.temire.inventory.service.data.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.io.Serializable;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class OrderResult implements Serializable {
+    String order_id;
+    boolean accepted;
+    String message;
+    List<CheckedProduct> items;
+}
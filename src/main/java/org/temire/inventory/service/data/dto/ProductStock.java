@@ -0,0 +1,20 @@
+package org.temire.inventory.service.data.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+
+import java.io.Serializable;
+
+// The stock view of a product, read straight off _id and quantity.
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+public class ProductStock implements Serializable {
+    @Id
+    String product_id;
+    Integer quantity;
+}
@@ -0,0 +1,31 @@
+package org.temire.inventory.service.data.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+/**
+ * Resume token of the last change a node applied from a change stream, stored per stream and node.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Document(collection = "change_stream_tokens")
+public class ChangeStreamToken {
+
+    @Id
+    private String name;
+
+    @Field
+    org.bson.Document token;
+
+    @Field
+    Instant updated_at;
+}
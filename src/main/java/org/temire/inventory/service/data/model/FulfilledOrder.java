@@ -0,0 +1,39 @@
+package org.temire.inventory.service.data.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.temire.inventory.service.data.dto.OrderResult;
+
+import java.time.Instant;
+
+/**
+ * An order the fulfilment consumer has claimed, so a redelivered record does not take its stock a
+ * second time. result stays null until the reservation has been written. Mongo removes the record
+ * once expires_at has passed.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Document(collection = "fulfilled_orders")
+public class FulfilledOrder {
+
+    @Id
+    private String order_id;
+
+    @Field
+    OrderResult result;
+
+    @Field
+    Instant claimed_at;
+
+    @Field
+    @Indexed(expireAfterSeconds = 0)
+    Instant expires_at;
+}
@@ -0,0 +1,42 @@
+package org.temire.inventory.service.data.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * Stock of one product at one location. Setting it moves the product's quantity by the same
+ * difference, but orders, holds and the hot-stock ledger take from the product's quantity alone,
+ * so the locations usually add up to more than it; a product update or ingest can also set it
+ * above them. The product's quantity is what may be sold, and an allocation has to pass both its
+ * guard and the location's.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Document(collection = "location_stock")
+public class LocationStock {
+
+    @Id
+    private String id;
+
+    @Field
+    @Indexed
+    String product_id;
+
+    @Field
+    String location_id;
+
+    @Field
+    Integer quantity;
+
+    public static String idOf(String product_id, String location_id) {
+        return product_id + "@" + location_id;
+    }
+}
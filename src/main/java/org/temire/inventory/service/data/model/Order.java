@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 import org.springframework.data.mongodb.core.mapping.MongoId;
@@ -17,6 +18,7 @@ import java.util.List;
 @NoArgsConstructor
 @ToString
 @Document
+@CompoundIndex(name = "fulfilled_order_date", def = "{'fulfilled': 1, 'order_date': 1}")
 public class Order{
 
     @MongoId
@@ -37,4 +39,14 @@ public class Order{
     @Field
     boolean fulfilled;
 
+    // Sum of the line prices as ordered; not a bean property, so it is never serialized.
+    public double computeTotal() {
+        double total = 0;
+        if (items == null) return total;
+        for (OrderProduct item : items) {
+            if (item.getQuantity() != null) total += item.getOrderPrice() * item.getQuantity();
+        }
+        return total;
+    }
+
 }
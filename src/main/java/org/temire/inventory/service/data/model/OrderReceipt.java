@@ -0,0 +1,47 @@
+package org.temire.inventory.service.data.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+/**
+ * The response an accepted order got, kept under its idempotency key so a retried request can be
+ * answered with it. code stays null while the order is still being placed. Mongo removes the
+ * receipt once expires_at has passed.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Document(collection = "order_receipts")
+public class OrderReceipt {
+
+    @Id
+    private String key;
+
+    @Field
+    String code;
+
+    @Field
+    int status;
+
+    @Field
+    String message;
+
+    @Field
+    Order order;
+
+    @Field
+    Instant created_at;
+
+    @Field
+    @Indexed(expireAfterSeconds = 0)
+    Instant expires_at;
+}
@@ -0,0 +1,48 @@
+package org.temire.inventory.service.data.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Document(collection = "order_outbox")
+public class OutboxOrder {
+
+    @Id
+    private String order_id;
+
+    @Field
+    Order order;
+
+    @Field
+    Instant created_at;
+
+    @Field
+    @Indexed
+    Instant next_attempt_at;
+
+    @Field
+    int attempts;
+
+    @Field
+    @Indexed(sparse = true)
+    String claim_id;
+
+    public OutboxOrder(Order order) {
+        Instant now = Instant.now();
+        this.order_id = order.getOrder_id();
+        this.order = order;
+        this.created_at = now;
+        this.next_attempt_at = now;
+    }
+}
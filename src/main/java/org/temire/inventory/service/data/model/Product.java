@@ -1,7 +1,12 @@
 package org.temire.inventory.service.data.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -11,6 +16,7 @@ import org.springframework.data.mongodb.core.mapping.Field;
 @NoArgsConstructor
 @ToString
 @Document
+@CompoundIndex(name = "quantity_id", def = "{'quantity': 1, '_id': 1}")
 public class Product{
 
     @Id
@@ -22,4 +28,32 @@ public class Product{
     double price;
     @Field
     Integer quantity;
+    // Stock level at or below which a low-stock event is published; null disables it.
+    @Field
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Integer reorder_threshold;
+    // Units held for carts; they are already taken out of quantity. Only holds move it.
+    @Field
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    Integer reserved;
+    // Units hot-stock ledgers have escrowed for flash sales; they count in quantity but only the
+    // ledgers may sell them.
+    @Field
+    @JsonIgnore
+    Integer hot_held;
+    // Moves on every write, the stock $inc updates included; it is the ETag of the product.
+    @Version
+    @Field
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    Long version;
+
+    public Product(String product_id, String name, String description, double price, Integer quantity) {
+        this(product_id, name, description, price, quantity, null, null, null);
+    }
+
+    public Product(String product_id, String name, String description, double price, Integer quantity,
+                   Integer reorder_threshold, Integer reserved, Long version) {
+        this(product_id, name, description, price, quantity, reorder_threshold, reserved, null, version);
+    }
 }
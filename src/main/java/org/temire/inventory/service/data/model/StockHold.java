@@ -0,0 +1,39 @@
+package org.temire.inventory.service.data.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.temire.inventory.service.data.dto.OrderProduct;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Stock set aside for a cart until it is confirmed, released or expires_at passes. The held units
+ * are moved from the products' quantity to their reserved count while the hold exists.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Document(collection = "stock_holds")
+public class StockHold {
+
+    @Id
+    private String hold_id;
+
+    @Field
+    List<OrderProduct> items;
+
+    @Field
+    Instant created_at;
+
+    @Field
+    @Indexed
+    Instant expires_at;
+}
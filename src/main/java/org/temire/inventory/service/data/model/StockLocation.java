@@ -0,0 +1,29 @@
+package org.temire.inventory.service.data.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+/**
+ * A warehouse or store that holds stock. The coordinates are only used by the nearest strategy.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@ToString
+@Document(collection = "stock_locations")
+public class StockLocation {
+
+    @Id
+    private String location_id;
+
+    @Field
+    String name;
+
+    @Field
+    Double latitude, longitude;
+}
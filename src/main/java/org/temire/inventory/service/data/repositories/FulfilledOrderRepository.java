@@ -0,0 +1,9 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+import org.temire.inventory.service.data.model.FulfilledOrder;
+
+@Repository
+public interface FulfilledOrderRepository extends MongoRepository<FulfilledOrder, String>, FulfilledOrderRepositoryCustom {
+}
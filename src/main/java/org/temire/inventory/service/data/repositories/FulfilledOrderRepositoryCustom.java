@@ -0,0 +1,15 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.temire.inventory.service.data.dto.OrderResult;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+public interface FulfilledOrderRepositoryCustom {
+
+    Set<String> claimAll(Collection<String> order_ids, Instant now, Instant expiresAt);
+
+    void completeAll(List<OrderResult> results);
+}
@@ -0,0 +1,68 @@
+package org.temire.inventory.service.data.repositories;
+
+import com.mongodb.bulk.BulkWriteError;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.temire.inventory.service.data.dto.OrderResult;
+import org.temire.inventory.service.data.model.FulfilledOrder;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class FulfilledOrderRepositoryCustomImpl implements FulfilledOrderRepositoryCustom {
+
+    private static final int DUPLICATE_KEY = 11000;
+
+    private final MongoTemplate mongoTemplate;
+
+    public FulfilledOrderRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // One unordered insert per order; the _id index lets exactly one of any competing inserts in,
+    // so the ids returned are the orders this caller now owns. Any other write error gives the
+    // claims back before it is rethrown, as no stock has been taken for them yet.
+    @Override
+    public Set<String> claimAll(Collection<String> order_ids, Instant now, Instant expiresAt) {
+        List<String> ids = new ArrayList<>(new LinkedHashSet<>(order_ids));
+        Set<String> claimed = new LinkedHashSet<>(ids);
+        if (ids.isEmpty()) return claimed;
+        BulkOperations claims = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FulfilledOrder.class);
+        for (String id : ids) claims.insert(new FulfilledOrder(id, null, now, expiresAt));
+        try {
+            claims.execute();
+        } catch (BulkOperationException ex) {
+            boolean failed = false;
+            for (BulkWriteError error : ex.getErrors()) {
+                claimed.remove(ids.get(error.getIndex()));
+                failed |= error.getCode() != DUPLICATE_KEY;
+            }
+            if (failed) {
+                if (!claimed.isEmpty()) {
+                    mongoTemplate.remove(new Query(where("_id").in(claimed).and("result").is(null)), FulfilledOrder.class);
+                }
+                throw ex;
+            }
+        }
+        return claimed;
+    }
+
+    @Override
+    public void completeAll(List<OrderResult> results) {
+        if (results.isEmpty()) return;
+        BulkOperations complete = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, FulfilledOrder.class);
+        for (OrderResult result : results) {
+            complete.updateOne(new Query(where("_id").is(result.getOrder_id())), new Update().set("result", result));
+        }
+        complete.execute();
+    }
+}
@@ -0,0 +1,71 @@
+package org.temire.inventory.service.data.repositories;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+/**
+ * All-or-nothing stock takes in one ordered bulk write. Each line is an upsert guarded by its
+ * stock filter: a short line tries to insert a second document with the same _id, fails with a
+ * duplicate key error and stops the bulk at that line. A line whose document is gone inserts a
+ * placeholder instead, which the bulk result reports by index. Either way the lines applied
+ * before the failing one are given back and the placeholders removed, in one more bulk write.
+ * Without a transaction that second write is separate, so a crash between the two leaves the
+ * earlier lines taken, as does a bulk that fails without reporting how far it got.
+ */
+final class GuardedTake {
+
+    // Only ever on a document a take upserted, so removing it can never hit a document saved since.
+    static final String PLACEHOLDER = "take_placeholder";
+    private static final int DUPLICATE_KEY = 11000;
+
+    private GuardedTake() {
+    }
+
+    // Returns the index of the first line that could not be taken, or -1 once every line was.
+    static int takeAll(MongoTemplate mongoTemplate, Class<?> entityClass, int lines, IntFunction<Query> guard,
+                       IntFunction<Update> take, IntFunction<Object> idOf, IntFunction<Update> giveBack) {
+        if (lines == 0) return -1;
+        BulkOperations takes = mongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, entityClass);
+        for (int line = 0; line < lines; line++) {
+            takes.upsert(guard.apply(line), take.apply(line).setOnInsert(PLACEHOLDER, true));
+        }
+        BulkWriteResult result;
+        BulkOperationException failure = null;
+        try {
+            result = takes.execute();
+        } catch (BulkOperationException ex) {
+            failure = ex;
+            result = ex.getResult();
+        }
+        BulkWriteError error = failure == null ? null : failure.getErrors().get(0);
+        Set<Integer> missing = result.getUpserts().stream().map(BulkWriteUpsert::getIndex).collect(Collectors.toSet());
+        if (error == null && missing.isEmpty()) return -1;
+
+        int applied = error == null ? lines : error.getIndex();
+        if (applied > 0) {
+            BulkOperations undo = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, entityClass);
+            for (int line = 0; line < applied; line++) {
+                if (missing.contains(line)) {
+                    undo.remove(new Query(where("_id").is(idOf.apply(line)).and(PLACEHOLDER).is(true)));
+                } else {
+                    undo.updateOne(new Query(where("_id").is(idOf.apply(line))), giveBack.apply(line));
+                }
+            }
+            undo.execute();
+        }
+        if (error != null && error.getCode() != DUPLICATE_KEY) throw failure;
+        return missing.isEmpty() ? applied : Math.min(applied, missing.stream().min(Integer::compare).get());
+    }
+}
@@ -0,0 +1,16 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.temire.inventory.service.data.model.LocationStock;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface LocationStockRepository extends MongoRepository<LocationStock, String>, LocationStockRepositoryCustom {
+
+    @Query("{'product_id': {$in: ?0} }")
+    List<LocationStock> findAllByProductIds(Collection<String> product_ids);
+}
@@ -0,0 +1,17 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.temire.inventory.service.data.dto.LocationAllocation;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface LocationStockRepositoryCustom {
+
+    int setQuantity(String product_id, String location_id, int quantity);
+
+    boolean restoreQuantity(String product_id, String location_id, int expected, int previous);
+
+    Optional<LocationAllocation> takeAll(List<LocationAllocation> allocations);
+
+    void giveBackAll(List<LocationAllocation> allocations);
+}
@@ -0,0 +1,67 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.temire.inventory.service.data.dto.LocationAllocation;
+import org.temire.inventory.service.data.model.LocationStock;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class LocationStockRepositoryCustomImpl implements LocationStockRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public LocationStockRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Returns what the location held before, so the caller can move the product total by the difference.
+    @Override
+    public int setQuantity(String product_id, String location_id, int quantity) {
+        Update update = new Update().set("quantity", quantity)
+                .setOnInsert("product_id", product_id)
+                .setOnInsert("location_id", location_id);
+        LocationStock previous = mongoTemplate.findAndModify(new Query(where("_id").is(LocationStock.idOf(product_id, location_id))),
+                update, FindAndModifyOptions.options().upsert(true).returnNew(false), LocationStock.class);
+        return previous == null || previous.getQuantity() == null ? 0 : previous.getQuantity();
+    }
+
+    // Undoes a setQuantity only while the location still holds what it was set to, so a later write is never lost.
+    @Override
+    public boolean restoreQuantity(String product_id, String location_id, int expected, int previous) {
+        return mongoTemplate.updateFirst(
+                new Query(where("_id").is(LocationStock.idOf(product_id, location_id)).and("quantity").is(expected)),
+                new Update().set("quantity", previous), LocationStock.class).getMatchedCount() > 0;
+    }
+
+    // Same all-or-nothing ordered bulk as ProductRepositoryCustomImpl.reserveAll, one line per location.
+    @Override
+    public Optional<LocationAllocation> takeAll(List<LocationAllocation> allocations) {
+        int failed = GuardedTake.takeAll(mongoTemplate, LocationStock.class, allocations.size(),
+                line -> new Query(where("_id").is(idOf(allocations.get(line))).and("quantity").gte(allocations.get(line).getQuantity())),
+                line -> new Update().inc("quantity", -allocations.get(line).getQuantity()),
+                line -> idOf(allocations.get(line)),
+                line -> new Update().inc("quantity", allocations.get(line).getQuantity()));
+        return failed < 0 ? Optional.empty() : Optional.of(allocations.get(failed));
+    }
+
+    @Override
+    public void giveBackAll(List<LocationAllocation> allocations) {
+        if (allocations.isEmpty()) return;
+        BulkOperations giveBack = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, LocationStock.class);
+        for (LocationAllocation allocation : allocations) {
+            giveBack.updateOne(new Query(where("_id").is(idOf(allocation))), new Update().inc("quantity", allocation.getQuantity()));
+        }
+        giveBack.execute();
+    }
+
+    private static String idOf(LocationAllocation allocation) {
+        return LocationStock.idOf(allocation.getProduct_id(), allocation.getLocation_id());
+    }
+}
@@ -0,0 +1,14 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.temire.inventory.service.data.model.OrderReceipt;
+
+import java.time.Instant;
+
+public interface OrderReceiptRepositoryCustom {
+
+    boolean claim(String key, Instant now, Instant expiresAt);
+
+    void complete(OrderReceipt receipt);
+
+    void release(String key);
+}
@@ -0,0 +1,50 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.temire.inventory.service.data.model.OrderReceipt;
+
+import java.time.Instant;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class OrderReceiptRepositoryCustomImpl implements OrderReceiptRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public OrderReceiptRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // A pending receipt has no code. The upsert only matches a pending receipt whose claim has
+    // lapsed; for a live or completed receipt it tries to insert a second document with the same
+    // _id, which the index rejects, so exactly one caller holds a key at a time.
+    @Override
+    public boolean claim(String key, Instant now, Instant expiresAt) {
+        try {
+            mongoTemplate.upsert(new Query(where("_id").is(key).and("code").is(null).and("expires_at").lte(now)),
+                    new Update().set("created_at", now).set("expires_at", expiresAt), OrderReceipt.class);
+            return true;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+
+    @Override
+    public void complete(OrderReceipt receipt) {
+        mongoTemplate.updateFirst(new Query(where("_id").is(receipt.getKey())),
+                new Update().set("code", receipt.getCode())
+                        .set("status", receipt.getStatus())
+                        .set("message", receipt.getMessage())
+                        .set("order", receipt.getOrder())
+                        .set("expires_at", receipt.getExpires_at()),
+                OrderReceipt.class);
+    }
+
+    @Override
+    public void release(String key) {
+        mongoTemplate.remove(new Query(where("_id").is(key).and("code").is(null)), OrderReceipt.class);
+    }
+}
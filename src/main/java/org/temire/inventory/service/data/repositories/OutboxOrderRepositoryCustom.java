@@ -0,0 +1,15 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.temire.inventory.service.data.model.OutboxOrder;
+
+import java.time.Duration;
+import java.util.List;
+
+public interface OutboxOrderRepositoryCustom {
+
+    List<OutboxOrder> claimBatch(String owner, int size, Duration lease);
+
+    long deleteClaimed(String claim_id, List<String> order_ids);
+
+    void scheduleRetry(List<OutboxOrder> failed, Duration baseDelay, Duration maxDelay);
+}
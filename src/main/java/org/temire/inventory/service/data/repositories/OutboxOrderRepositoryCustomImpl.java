@@ -0,0 +1,68 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.temire.inventory.service.data.model.OutboxOrder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class OutboxOrderRepositoryCustomImpl implements OutboxOrderRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public OutboxOrderRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Due entries are leased by pushing next_attempt_at past the lease, so relays on other
+    // replicas skip them; an entry whose relay died becomes due again once the lease runs out.
+    @Override
+    public List<OutboxOrder> claimBatch(String owner, int size, Duration lease) {
+        Instant now = Instant.now();
+        Query due = new Query(where("next_attempt_at").lte(now))
+                .with(Sort.by("next_attempt_at"))
+                .limit(size);
+        due.fields().include("_id");
+        List<Object> ids = new ArrayList<>();
+        for (OutboxOrder entry : mongoTemplate.find(due, OutboxOrder.class)) ids.add(entry.getOrder_id());
+        if (ids.isEmpty()) return Collections.emptyList();
+
+        String claim = owner + ":" + UUID.randomUUID();
+        mongoTemplate.updateMulti(new Query(where("_id").in(ids).and("next_attempt_at").lte(now)),
+                new Update().set("next_attempt_at", now.plus(lease)).set("claim_id", claim),
+                OutboxOrder.class);
+        return mongoTemplate.find(new Query(where("claim_id").is(claim)), OutboxOrder.class);
+    }
+
+    // An entry whose lease ran out may have been re-claimed by another relay; that relay owns it now.
+    @Override
+    public long deleteClaimed(String claim_id, List<String> order_ids) {
+        return mongoTemplate.remove(new Query(where("_id").in(order_ids).and("claim_id").is(claim_id)),
+                OutboxOrder.class).getDeletedCount();
+    }
+
+    @Override
+    public void scheduleRetry(List<OutboxOrder> failed, Duration baseDelay, Duration maxDelay) {
+        if (failed.isEmpty()) return;
+        Instant now = Instant.now();
+        BulkOperations retry = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, OutboxOrder.class);
+        for (OutboxOrder entry : failed) {
+            long factor = 1L << Math.min(entry.getAttempts(), 20);
+            Duration delay = baseDelay.multipliedBy(factor);
+            if (delay.compareTo(maxDelay) > 0) delay = maxDelay;
+            retry.updateOne(new Query(where("_id").is(entry.getOrder_id()).and("claim_id").is(entry.getClaim_id())),
+                    new Update().inc("attempts", 1).set("next_attempt_at", now.plus(delay)).unset("claim_id"));
+        }
+        retry.execute();
+    }
+}
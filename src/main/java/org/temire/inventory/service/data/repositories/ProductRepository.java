@@ -1,6 +1,8 @@
 package org.temire.inventory.service.data.repositories;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mongodb.repository.Meta;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
@@ -8,12 +10,22 @@ import org.temire.inventory.service.data.model.Product;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface ProductRepository extends MongoRepository<Product, String> {
+public interface ProductRepository extends MongoRepository<Product, String>, ProductRepositoryCustom {
 
     @Query("{'quantity': {$gte:?0} }")
     List<Product>findWithCondition(Pageable pageable, int quantity);
 
+    Slice<Product> findAllBy(Pageable pageable);
+
+    @Meta(cursorBatchSize = 1000)
+    Stream<Product> streamAllBy();
+
+    @Meta(cursorBatchSize = 1000)
+    @Query("{'quantity': {$gte:?0} }")
+    Stream<Product> streamWithCondition(int quantity);
+
 
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.bson.Document;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.temire.inventory.service.data.ProductFields;
+import org.temire.inventory.service.data.dto.IngestChunkResult;
+import org.temire.inventory.service.data.dto.ProductStock;
+import org.temire.inventory.service.data.model.Product;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface ProductRepositoryCustom {
+
+    Optional<Product> decrementQuantity(String product_id, int quantity);
+
+    Optional<Product> incrementQuantity(String product_id, int quantity);
+
+    Optional<String> reserveAll(Map<String, Integer> quantities);
+
+    Optional<String> holdAll(Map<String, Integer> quantities);
+
+    void confirmHeld(Map<String, Integer> quantities);
+
+    void releaseHeld(Map<String, Integer> quantities);
+
+    void addReserved(Map<String, Integer> quantities);
+
+    boolean escrow(String product_id, int units);
+
+    Optional<Product> settle(String product_id, int sold, int released);
+
+    Optional<Long> findVersion(String product_id);
+
+    long backfillVersions();
+
+    IngestChunkResult upsertAll(int chunk, List<Product> products);
+
+    List<Product> findPageAfter(String product_id, int limit);
+
+    List<Product> findAvailablePageAfter(int minQuantity, Integer quantity, String product_id, int limit);
+
+    Page<Document> findPage(Pageable pageable, ProductFields fields);
+
+    List<Document> findSliceRows(Pageable pageable, ProductFields fields);
+
+    List<Document> findPageAfter(String product_id, int limit, ProductFields fields);
+
+    List<Document> findAvailable(Pageable pageable, int minQuantity, ProductFields fields);
+
+    List<Document> findAvailablePageAfter(int minQuantity, Integer quantity, String product_id, int limit, ProductFields fields);
+
+    List<ProductStock> findStockPageAfter(String product_id, int limit);
+
+    List<ProductStock> findStockByIds(Collection<String> product_ids);
+}
@@ -0,0 +1,279 @@
+package org.temire.inventory.service.data.repositories;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.schema.JsonSchemaObject;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.temire.inventory.service.data.ProductFields;
+import org.temire.inventory.service.data.dto.IngestChunkResult;
+import org.temire.inventory.service.data.dto.ProductStock;
+import org.temire.inventory.service.data.model.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public ProductRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Single round trip: the filter only matches while enough stock is left, so two
+    // concurrent decrements can never take the quantity below zero, on any node.
+    @Override
+    public Optional<Product> decrementQuantity(String product_id, int quantity) {
+        Product updated = mongoTemplate.findAndModify(withFree(product_id, quantity), stockDelta(-quantity),
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        return Optional.ofNullable(updated);
+    }
+
+    @Override
+    public Optional<Product> incrementQuantity(String product_id, int quantity) {
+        Product updated = mongoTemplate.findAndModify(new Query(where("_id").is(product_id)), stockDelta(quantity),
+                FindAndModifyOptions.options().returnNew(true), Product.class);
+        return Optional.ofNullable(updated);
+    }
+
+    // All-or-nothing in one ordered bulk (see GuardedTake): the first line that is short, or whose
+    // product is gone, stops the write and every line before it is given back.
+    @Override
+    public Optional<String> reserveAll(Map<String, Integer> quantities) {
+        return takeAll(quantities, ProductRepositoryCustomImpl::stockDelta);
+    }
+
+    // Same all-or-nothing write as reserveAll, but the units move to the reserved count.
+    @Override
+    public Optional<String> holdAll(Map<String, Integer> quantities) {
+        return takeAll(quantities, ProductRepositoryCustomImpl::holdDelta);
+    }
+
+    @Override
+    public void confirmHeld(Map<String, Integer> quantities) {
+        applyAll(quantities, quantity -> new Update().inc("reserved", -quantity).inc("version", 1));
+    }
+
+    @Override
+    public void releaseHeld(Map<String, Integer> quantities) {
+        applyAll(quantities, ProductRepositoryCustomImpl::holdDelta);
+    }
+
+    @Override
+    public void addReserved(Map<String, Integer> quantities) {
+        applyAll(quantities, quantity -> new Update().inc("reserved", quantity).inc("version", 1));
+    }
+
+    // The version moves with the escrow so a product saved from an older copy cannot overwrite it.
+    @Override
+    public boolean escrow(String product_id, int units) {
+        return mongoTemplate.updateFirst(withFree(product_id, units), new Update().inc("hot_held", units).inc("version", 1),
+                Product.class).getMatchedCount() > 0;
+    }
+
+    // sold units leave both quantity and the escrow; released units only leave the escrow.
+    @Override
+    public Optional<Product> settle(String product_id, int sold, int released) {
+        Update update = new Update().inc("hot_held", -(sold + released)).inc("version", 1);
+        if (sold != 0) update.inc("quantity", -sold);
+        return Optional.ofNullable(mongoTemplate.findAndModify(new Query(where("_id").is(product_id)), update,
+                FindAndModifyOptions.options().returnNew(true), Product.class));
+    }
+
+    private Optional<String> takeAll(Map<String, Integer> quantities, IntFunction<Update> delta) {
+        List<Map.Entry<String, Integer>> lines = new ArrayList<>(quantities.entrySet());
+        int failed = GuardedTake.takeAll(mongoTemplate, Product.class, lines.size(),
+                line -> withFree(lines.get(line).getKey(), lines.get(line).getValue()),
+                line -> delta.apply(-lines.get(line).getValue()),
+                line -> lines.get(line).getKey(),
+                line -> delta.apply(lines.get(line).getValue()));
+        return failed < 0 ? Optional.empty() : Optional.of(lines.get(failed).getKey());
+    }
+
+    // Only reads _id and version, so a conditional GET never loads the product itself.
+    @Override
+    public Optional<Long> findVersion(String product_id) {
+        Query query = new Query(where("_id").is(product_id));
+        query.fields().include("version");
+        Document found = mongoTemplate.findOne(query, Document.class, mongoTemplate.getCollectionName(Product.class));
+        Object version = found == null ? null : found.get("version");
+        return version instanceof Number ? Optional.of(((Number) version).longValue()) : Optional.empty();
+    }
+
+    // Products written before the version field existed would otherwise be inserted again by save().
+    @Override
+    public long backfillVersions() {
+        return mongoTemplate.updateMulti(new Query(where("version").exists(false)), new Update().set("version", 0L),
+                Product.class).getModifiedCount();
+    }
+
+    // Unordered, so the server may apply the writes in parallel and one bad row does not stop the
+    // rest of the chunk. Each field is set rather than the document replaced, so the version can
+    // move on; fields the product leaves null are removed, as a replacement would. The stock the
+    // service moves itself (reserved, hot_held) is left as stored.
+    @Override
+    public IngestChunkResult upsertAll(int chunk, List<Product> products) {
+        BulkOperations upserts = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (Product product : products) {
+            upserts.upsert(new Query(where("_id").is(product.getProduct_id())), replacementOf(product));
+        }
+        BulkWriteResult result;
+        List<String> failed = new ArrayList<>();
+        try {
+            result = upserts.execute();
+        } catch (BulkOperationException ex) {
+            result = ex.getResult();
+            for (BulkWriteError error : ex.getErrors()) failed.add(products.get(error.getIndex()).getProduct_id());
+        }
+        return new IngestChunkResult(chunk, result.getUpserts().size(), result.getMatchedCount(), failed.size(), failed);
+    }
+
+    // Keyset pages: each page starts strictly after the sort key of the previous page's last
+    // product, so the server seeks through the index instead of skipping earlier pages.
+    @Override
+    public List<Product> findPageAfter(String product_id, int limit) {
+        return mongoTemplate.find(pageAfter(product_id, limit), Product.class);
+    }
+
+    @Override
+    public List<Product> findAvailablePageAfter(int minQuantity, Integer quantity, String product_id, int limit) {
+        return mongoTemplate.find(availablePageAfter(minQuantity, quantity, product_id, limit), Product.class);
+    }
+
+    @Override
+    public Page<Document> findPage(Pageable pageable, ProductFields fields) {
+        List<Document> rows = findRows(fields.includeIn(paged(new Query(), pageable)), fields);
+        return PageableExecutionUtils.getPage(rows, pageable, () -> mongoTemplate.count(new Query(), Product.class));
+    }
+
+    @Override
+    public List<Document> findSliceRows(Pageable pageable, ProductFields fields) {
+        Query query = paged(new Query(), pageable);
+        if (pageable.isPaged()) query.limit(pageable.getPageSize() + 1);
+        return findRows(fields.includeIn(query), fields);
+    }
+
+    @Override
+    public List<Document> findPageAfter(String product_id, int limit, ProductFields fields) {
+        return findRows(fields.includeIn(pageAfter(product_id, limit)), fields);
+    }
+
+    @Override
+    public List<Document> findAvailable(Pageable pageable, int minQuantity, ProductFields fields) {
+        return findRows(fields.includeIn(paged(new Query(where("quantity").gte(minQuantity)), pageable)), fields);
+    }
+
+    @Override
+    public List<Document> findAvailablePageAfter(int minQuantity, Integer quantity, String product_id, int limit, ProductFields fields) {
+        return findRows(fields.includeIn(availablePageAfter(minQuantity, quantity, product_id, limit)), fields);
+    }
+
+    @Override
+    public List<ProductStock> findStockPageAfter(String product_id, int limit) {
+        Query query = pageAfter(product_id, limit);
+        query.fields().include("quantity");
+        return mongoTemplate.find(query, ProductStock.class, mongoTemplate.getCollectionName(Product.class));
+    }
+
+    @Override
+    public List<ProductStock> findStockByIds(Collection<String> product_ids) {
+        Query query = new Query(where("_id").in(product_ids));
+        query.fields().include("quantity");
+        return mongoTemplate.find(query, ProductStock.class, mongoTemplate.getCollectionName(Product.class));
+    }
+
+    // Raw documents skip mapping every row into a Product only to serialize a few of its fields.
+    private List<Document> findRows(Query query, ProductFields fields) {
+        return mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Product.class)).stream()
+                .map(fields::fromMongo)
+                .collect(Collectors.toList());
+    }
+
+    private static Query paged(Query query, Pageable pageable) {
+        if (pageable.isPaged()) query.skip(pageable.getOffset()).limit(pageable.getPageSize());
+        return query.with(ProductFields.toMongo(pageable.getSort()));
+    }
+
+    static Query pageAfter(String product_id, int limit) {
+        Query query = product_id == null ? new Query() : new Query(idAfter(product_id));
+        return query.with(Sort.by("_id")).limit(limit);
+    }
+
+    static Query availablePageAfter(int minQuantity, Integer quantity, String product_id, int limit) {
+        Criteria criteria = where("quantity").gte(minQuantity);
+        if (quantity != null) {
+            criteria = new Criteria().andOperator(criteria, new Criteria().orOperator(
+                    where("quantity").gt(quantity),
+                    new Criteria().andOperator(where("quantity").is(quantity), idAfter(product_id))));
+        }
+        return new Query(criteria).with(Sort.by("quantity", "_id")).limit(limit);
+    }
+
+    // A hex id is stored as an ObjectId, but the query mapper leaves a $gt operand as the string,
+    // and $gt only matches values of the same BSON type. Every string id sorts before every
+    // ObjectId, so a cursor on a string id still has all of the ObjectIds ahead of it.
+    static Criteria idAfter(String product_id) {
+        if (ObjectId.isValid(product_id)) return where("_id").gt(new ObjectId(product_id));
+        return new Criteria().orOperator(where("_id").gt(product_id), where("_id").type(JsonSchemaObject.Type.objectIdType()));
+    }
+
+    private void applyAll(Map<String, Integer> quantities, IntFunction<Update> delta) {
+        applyAll(new ArrayList<>(quantities.entrySet()), delta);
+    }
+
+    private void applyAll(List<Map.Entry<String, Integer>> lines, IntFunction<Update> delta) {
+        if (lines.isEmpty()) return;
+        BulkOperations apply = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (Map.Entry<String, Integer> line : lines) {
+            apply.updateOne(new Query(where("_id").is(line.getKey())), delta.apply(line.getValue()));
+        }
+        apply.execute();
+    }
+
+    // Matches while at least quantity units are left outside the hot-stock escrow.
+    static Query withFree(String product_id, int quantity) {
+        Document free = new Document("$subtract", List.of("$quantity", new Document("$ifNull", List.of("$hot_held", 0))));
+        return new Query(where("_id").is(product_id)).addCriteria(where("$expr").is(new Document("$gte", List.of(free, quantity))));
+    }
+
+    static Update stockDelta(int delta) {
+        return new Update().inc("quantity", delta).inc("version", 1);
+    }
+
+    static Update holdDelta(int delta) {
+        return new Update().inc("quantity", delta).inc("reserved", -delta).inc("version", 1);
+    }
+
+    static Update replacementOf(Product product) {
+        Update update = new Update().set("price", product.getPrice()).inc("version", 1);
+        setOrUnset(update, "name", product.getName());
+        setOrUnset(update, "description", product.getDescription());
+        setOrUnset(update, "quantity", product.getQuantity());
+        setOrUnset(update, "reorder_threshold", product.getReorder_threshold());
+        return update;
+    }
+
+    private static void setOrUnset(Update update, String field, Object value) {
+        if (value == null) update.unset(field);
+        else update.set(field, value);
+    }
+}
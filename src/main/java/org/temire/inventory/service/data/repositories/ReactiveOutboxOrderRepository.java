@@ -0,0 +1,9 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import org.temire.inventory.service.data.model.OutboxOrder;
+
+@Repository
+public interface ReactiveOutboxOrderRepository extends ReactiveMongoRepository<OutboxOrder, String> {
+}
@@ -0,0 +1,23 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.Meta;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+import org.temire.inventory.service.data.model.Product;
+import reactor.core.publisher.Flux;
+
+@Repository
+public interface ReactiveProductRepository extends ReactiveMongoRepository<Product, String>, ReactiveProductRepositoryCustom {
+
+    @Query("{'quantity': {$gte:?0} }")
+    Flux<Product> findWithCondition(Pageable pageable, int quantity);
+
+    @Meta(cursorBatchSize = 1000)
+    Flux<Product> streamAllBy();
+
+    @Meta(cursorBatchSize = 1000)
+    @Query("{'quantity': {$gte:?0} }")
+    Flux<Product> streamWithCondition(int quantity);
+}
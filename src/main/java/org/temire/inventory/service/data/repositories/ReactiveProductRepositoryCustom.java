@@ -0,0 +1,17 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.temire.inventory.service.data.model.Product;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface ReactiveProductRepositoryCustom {
+
+    Flux<Product> findSliceRows(Pageable pageable);
+
+    Flux<Product> findPageAfter(String product_id, int limit);
+
+    Flux<Product> findAvailablePageAfter(int minQuantity, Integer quantity, String product_id, int limit);
+
+    Mono<Long> findVersion(String product_id);
+}
@@ -0,0 +1,49 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.bson.Document;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.temire.inventory.service.data.model.Product;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class ReactiveProductRepositoryCustomImpl implements ReactiveProductRepositoryCustom {
+
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+
+    public ReactiveProductRepositoryCustomImpl(ReactiveMongoTemplate reactiveMongoTemplate) {
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+    }
+
+    // The rows of the requested page plus one, which only tells the caller whether another page exists.
+    @Override
+    public Flux<Product> findSliceRows(Pageable pageable) {
+        Query query = new Query().with(pageable).limit(pageable.getPageSize() + 1);
+        return reactiveMongoTemplate.find(query, Product.class);
+    }
+
+    // Built by the blocking repository, so both keysets compare ids the same way.
+    @Override
+    public Flux<Product> findPageAfter(String product_id, int limit) {
+        return reactiveMongoTemplate.find(ProductRepositoryCustomImpl.pageAfter(product_id, limit), Product.class);
+    }
+
+    @Override
+    public Flux<Product> findAvailablePageAfter(int minQuantity, Integer quantity, String product_id, int limit) {
+        return reactiveMongoTemplate.find(ProductRepositoryCustomImpl.availablePageAfter(minQuantity, quantity, product_id, limit),
+                Product.class);
+    }
+
+    @Override
+    public Mono<Long> findVersion(String product_id) {
+        Query query = new Query(where("_id").is(product_id));
+        query.fields().include("version");
+        return reactiveMongoTemplate.findOne(query, Document.class, reactiveMongoTemplate.getCollectionName(Product.class))
+                .flatMap(found -> found.get("version") instanceof Number
+                        ? Mono.just(((Number) found.get("version")).longValue())
+                        : Mono.empty());
+    }
+}
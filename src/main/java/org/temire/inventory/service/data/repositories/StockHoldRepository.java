@@ -0,0 +1,17 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.temire.inventory.service.data.model.StockHold;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface StockHoldRepository extends MongoRepository<StockHold, String>, StockHoldRepositoryCustom {
+
+    @Query("{'expires_at': {$lte: ?0} }")
+    List<StockHold> findExpiredBy(Instant now, Pageable pageable);
+}
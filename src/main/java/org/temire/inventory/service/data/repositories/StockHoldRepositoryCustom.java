@@ -0,0 +1,13 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.temire.inventory.service.data.model.StockHold;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface StockHoldRepositoryCustom {
+
+    Optional<StockHold> take(String hold_id);
+
+    Optional<StockHold> takeUnexpired(String hold_id, Instant now);
+}
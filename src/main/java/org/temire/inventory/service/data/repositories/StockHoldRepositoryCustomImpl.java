@@ -0,0 +1,32 @@
+package org.temire.inventory.service.data.repositories;
+
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.temire.inventory.service.data.model.StockHold;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+public class StockHoldRepositoryCustomImpl implements StockHoldRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    public StockHoldRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    // Confirm, release and expiry all start here; whichever removes the hold first settles it.
+    @Override
+    public Optional<StockHold> take(String hold_id) {
+        return Optional.ofNullable(mongoTemplate.findAndRemove(new Query(where("_id").is(hold_id)), StockHold.class));
+    }
+
+    // A hold past expires_at can no longer be confirmed, even before expiry has got to it.
+    @Override
+    public Optional<StockHold> takeUnexpired(String hold_id, Instant now) {
+        return Optional.ofNullable(mongoTemplate.findAndRemove(new Query(where("_id").is(hold_id).and("expires_at").gt(now)),
+                StockHold.class));
+    }
+}
@@ -12,9 +12,39 @@ public class KafkaTopicBuilder {
     @Value("${kafka.producer.order.name}")
     String topicName;
 
+    @Value("${kafka.producer.order-result.name}")
+    String resultTopicName;
+
+    @Value("${kafka.producer.low-stock.name}")
+    String lowStockTopicName;
+
+    @Value("${kafka.producer.order.partitions:6}")
+    int partitions;
+
+    @Value("${kafka.producer.order.replicas:1}")
+    int replicas;
+
     @Bean
     public NewTopic createOrderTopic(){
         return TopicBuilder.name(topicName)
+                .partitions(partitions)
+                .replicas(replicas)
+                .build();
+    }
+
+    @Bean
+    public NewTopic createOrderResultTopic(){
+        return TopicBuilder.name(resultTopicName)
+                .partitions(partitions)
+                .replicas(replicas)
+                .build();
+    }
+
+    @Bean
+    public NewTopic createLowStockTopic(){
+        return TopicBuilder.name(lowStockTopicName)
+                .partitions(partitions)
+                .replicas(replicas)
                 .build();
     }
 }
@@ -0,0 +1,127 @@
+package org.temire.inventory.service.kafka.consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+import org.temire.inventory.service.data.dto.OrderResult;
+import org.temire.inventory.service.data.model.FulfilledOrder;
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.data.repositories.FulfilledOrderRepository;
+import org.temire.inventory.service.kafka.KafkaConstants;
+import org.temire.inventory.service.kafka.producer.OrderResultProducer;
+import org.temire.inventory.service.services.ProductService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Component
+public class OrderFulfilmentConsumer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderFulfilmentConsumer.class);
+
+    private final ProductService productService;
+    private final OrderResultProducer orderResultProducer;
+    private final FulfilledOrderRepository fulfilledOrderRepository;
+    private final Duration retention;
+
+    public OrderFulfilmentConsumer(ProductService productService, OrderResultProducer orderResultProducer,
+                                   FulfilledOrderRepository fulfilledOrderRepository,
+                                   @Value("${inventory.orders.fulfilment.retention:7d}") Duration retention) {
+        this.productService = productService;
+        this.orderResultProducer = orderResultProducer;
+        this.fulfilledOrderRepository = fulfilledOrderRepository;
+        this.retention = retention;
+    }
+
+    // Offsets are committed once the listener returns, i.e. after the stock write and after
+    // every result has been acknowledged by the broker. A batch redelivered after a failed send
+    // or a rebalance finds its orders already claimed, so their stock is taken at most once and
+    // the stored results are sent again instead.
+    @KafkaListener(topics = "${kafka.producer.order.name}", groupId = KafkaConstants.GROUP_ID, batch = "true",
+            autoStartup = "${kafka.consumer.order.enabled:true}")
+    public void consume(List<Order> batch) {
+        List<Order> orders = new ArrayList<>(batch.size());
+        List<String> ids = new ArrayList<>(batch.size());
+        for (Order order : batch) {
+            if (order == null) {
+                LOGGER.warn("Skipping an order record that could not be deserialized");
+                continue;
+            }
+            orders.add(order);
+            if (order.getOrder_id() != null) ids.add(order.getOrder_id());
+        }
+        if (orders.isEmpty()) return;
+
+        Instant now = Instant.now();
+        Set<String> claimed = fulfilledOrderRepository.claimAll(ids, now, now.plus(retention));
+        List<Order> fresh = new ArrayList<>(orders.size());
+        boolean[] isFresh = new boolean[orders.size()];
+        Set<String> taken = new HashSet<>();
+        for (int i = 0; i < orders.size(); i++) {
+            String id = orders.get(i).getOrder_id();
+            // Orders placed through this service always carry an id. One sent without it by another
+            // producer cannot be recognised again, so it is fulfilled on every delivery.
+            isFresh[i] = id == null || (claimed.contains(id) && taken.add(id));
+            if (isFresh[i]) fresh.add(orders.get(i));
+        }
+
+        // fulfilOrders only throws while nothing of the batch is taken yet, so every claim is released.
+        List<OrderResult> freshResults;
+        try {
+            freshResults = fresh.isEmpty() ? Collections.emptyList() : productService.fulfilOrders(fresh);
+        } catch (RuntimeException ex) {
+            if (!claimed.isEmpty()) fulfilledOrderRepository.deleteAllById(claimed);
+            throw ex;
+        }
+        List<OrderResult> completed = new ArrayList<>(freshResults.size());
+        for (OrderResult result : freshResults) if (result.getOrder_id() != null) completed.add(result);
+        fulfilledOrderRepository.completeAll(completed);
+
+        List<OrderResult> results = replay(orders, isFresh, freshResults, claimed);
+        orderResultProducer.sendAll(results).join();
+        LOGGER.debug("Fulfilled a batch of {} orders, {} of them already seen", orders.size(), orders.size() - fresh.size());
+    }
+
+    private List<OrderResult> replay(List<Order> orders, boolean[] isFresh, List<OrderResult> freshResults, Set<String> claimed) {
+        Map<String, OrderResult> known = new HashMap<>();
+        for (OrderResult result : freshResults) if (result.getOrder_id() != null) known.put(result.getOrder_id(), result);
+        List<String> seen = new ArrayList<>();
+        for (Order order : orders) {
+            String id = order.getOrder_id();
+            if (id != null && !claimed.contains(id)) seen.add(id);
+        }
+        if (!seen.isEmpty()) {
+            for (FulfilledOrder previous : fulfilledOrderRepository.findAllById(seen)) {
+                if (previous.getResult() != null) known.put(previous.getOrder_id(), previous.getResult());
+            }
+        }
+
+        List<OrderResult> results = new ArrayList<>(orders.size());
+        int next = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            if (isFresh[i]) {
+                results.add(freshResults.get(next++));
+                continue;
+            }
+            String id = orders.get(i).getOrder_id();
+            OrderResult result = known.get(id);
+            if (result == null) {
+                // Claimed by a consumer that stopped before recording the outcome; retrying could
+                // take the stock twice, so the order is reported as not fulfilled.
+                LOGGER.warn("Order {} was claimed but its fulfilment never completed", id);
+                result = new OrderResult(id, false, "Fulfilment of this order was interrupted", null);
+            }
+            results.add(result);
+        }
+        return results;
+    }
+}
@@ -1,26 +1,115 @@
 package org.temire.inventory.service.kafka.producer;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
+import org.temire.inventory.service.CustomException;
 import org.temire.inventory.service.data.model.Order;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
 @Service
 public class KafkaProducer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(KafkaProducer.class);
 
-    @Autowired
-    private KafkaTemplate<String, Order> kafkaTemplate;
+    private final KafkaTemplate<String, Order> kafkaTemplate;
+    private final String topicName;
+    private final boolean keyByCustomer;
+    // Bounds the orders waiting for a broker ack; batching itself is left to the
+    // producer's accumulator (linger.ms, batch.size, compression.type).
+    private final Semaphore inFlight;
+    private final long enqueueTimeoutMillis;
+    private final Timer permitAcquired;
+    private final Timer permitRejected;
+    private final Timer acked;
+    private final Timer failed;
+
+    public KafkaProducer(KafkaTemplate<String, Order> kafkaTemplate,
+                         @Value("${kafka.producer.order.name}") String topicName,
+                         @Value("${kafka.producer.order.max-in-flight:1000}") int maxInFlight,
+                         @Value("${kafka.producer.order.enqueue-timeout:100ms}") Duration enqueueTimeout,
+                         @Value("${kafka.producer.order.key:order_id}") String key,
+                         MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.topicName = topicName;
+        this.keyByCustomer = "customer".equalsIgnoreCase(key);
+        this.inFlight = new Semaphore(maxInFlight);
+        this.enqueueTimeoutMillis = enqueueTimeout.toMillis();
+        this.permitAcquired = permitWait(meterRegistry, "acquired");
+        this.permitRejected = permitWait(meterRegistry, "rejected");
+        this.acked = send(meterRegistry, "acked");
+        this.failed = send(meterRegistry, "failed");
+        Gauge.builder("inventory.kafka.send.in_flight", inFlight, permits -> maxInFlight - permits.availablePermits())
+                .description("Orders handed to the producer and not yet acknowledged")
+                .tag("topic", topicName)
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<SendResult<String, Order>> sendMessage(Order message) {
+        if (!acquire())
+            return CompletableFuture.failedFuture(
+                    new CustomException("Too many orders waiting to be sent, try again later", HttpStatus.SERVICE_UNAVAILABLE));
+
+        long started = System.nanoTime();
+        CompletableFuture<SendResult<String, Order>> sent;
+        try {
+            sent = kafkaTemplate.send(topicName, keyFor(message), message).completable();
+        } catch (RuntimeException ex) {
+            inFlight.release();
+            return CompletableFuture.failedFuture(ex);
+        }
+        return sent.whenComplete((result, ex) -> {
+            inFlight.release();
+            (ex == null ? acked : failed).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            if (ex != null) LOGGER.warn("Order {} was not acknowledged: {}", message.getOrder_id(), ex.getMessage());
+            else LOGGER.debug("Order {} acknowledged at {}", message.getOrder_id(), result.getRecordMetadata());
+        });
+    }
 
-    @Value("${kafka.producer.order.name}")
-    String topicName;
+    // Records with the same key land on the same partition, so a consumer sees one
+    // order (or one customer's orders) in the sequence they were sent.
+    String keyFor(Order order) {
+        if (!keyByCustomer) return order.getOrder_id();
+        if (order.getCustomer_email() != null) return order.getCustomer_email();
+        if (order.getCustomer_phone() != null) return order.getCustomer_phone();
+        return order.getOrder_id();
+    }
+
+    private boolean acquire() {
+        long started = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = inFlight.tryAcquire(enqueueTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        (acquired ? permitAcquired : permitRejected).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return acquired;
+    }
+
+    private Timer permitWait(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("inventory.kafka.send.permit.wait")
+                .description("Time spent waiting for an in-flight send permit")
+                .tags("topic", topicName, "outcome", outcome)
+                .register(meterRegistry);
+    }
 
-    public void sendMessage(Order message){
-        LOGGER.info(String.format("Message sent -> %s", message));
-        kafkaTemplate.send(topicName, message);
+    private Timer send(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("inventory.kafka.send")
+                .description("Time from handing an order to the producer until the broker acknowledged it")
+                .tags("topic", topicName, "outcome", outcome)
+                .register(meterRegistry);
     }
-}
\ No newline at end of file
+}
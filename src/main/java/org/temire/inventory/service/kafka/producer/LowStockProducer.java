@@ -0,0 +1,123 @@
+package org.temire.inventory.service.kafka.producer;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.temire.inventory.service.data.dto.LowStockEvent;
+import org.temire.inventory.service.data.model.Product;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Publishes a low-stock event when a product's stock falls to its reorder threshold. Events are
+ * held per product until the next flush and only the latest one is sent, so a hot item produces
+ * at most one event per window however many orders take it below the threshold.
+ */
+@Service
+public class LowStockProducer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LowStockProducer.class);
+
+    private final KafkaTemplate<String, LowStockEvent> kafkaTemplate;
+    private final String topicName;
+    private final boolean enabled;
+    private final Map<String, LowStockEvent> pending = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+    private final Counter published;
+    private final Counter failed;
+
+    // Built here rather than exposed as beans so Boot's own order template stays auto-configured.
+    @Autowired
+    public LowStockProducer(KafkaProperties kafkaProperties,
+                            @Value("${kafka.producer.low-stock.name}") String topicName,
+                            @Value("${inventory.low-stock.enabled:true}") boolean enabled,
+                            MeterRegistry meterRegistry) {
+        this(new KafkaTemplate<>(producerFactory(kafkaProperties)), topicName, enabled, meterRegistry);
+    }
+
+    LowStockProducer(KafkaTemplate<String, LowStockEvent> kafkaTemplate, String topicName, boolean enabled,
+                     MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.topicName = topicName;
+        this.enabled = enabled;
+        this.coalesced = meterRegistry.counter("inventory.low_stock.events", "outcome", "coalesced");
+        this.published = meterRegistry.counter("inventory.low_stock.events", "outcome", "published");
+        this.failed = meterRegistry.counter("inventory.low_stock.events", "outcome", "failed");
+    }
+
+    private static DefaultKafkaProducerFactory<String, LowStockEvent> producerFactory(KafkaProperties kafkaProperties) {
+        JsonSerializer<LowStockEvent> valueSerializer = new JsonSerializer<>();
+        valueSerializer.setAddTypeInfo(false);
+        return new DefaultKafkaProducerFactory<>(kafkaProperties.buildProducerProperties(),
+                new StringSerializer(), valueSerializer);
+    }
+
+    // Reports the decrement only when it moved the stock from above the threshold to at or below it.
+    public void onDecrement(String product_id, Integer reorderThreshold, int quantity, int decrement) {
+        if (reorderThreshold == null || decrement <= 0) return;
+        if (quantity <= reorderThreshold && quantity + decrement > reorderThreshold)
+            offer(new LowStockEvent(product_id, quantity, reorderThreshold, Instant.now()));
+    }
+
+    public void onDecrement(Product product, int decrement) {
+        if (product.getQuantity() != null)
+            onDecrement(product.getProduct_id(), product.getReorder_threshold(), product.getQuantity(), decrement);
+    }
+
+    // A full replace may move the threshold as well as the stock, so there is no crossing to test.
+    public void onReplace(Product product) {
+        Integer reorderThreshold = product.getReorder_threshold();
+        if (reorderThreshold != null && product.getQuantity() != null && product.getQuantity() <= reorderThreshold)
+            offer(new LowStockEvent(product.getProduct_id(), product.getQuantity(), reorderThreshold, Instant.now()));
+    }
+
+    private void offer(LowStockEvent event) {
+        if (!enabled) return;
+        if (pending.put(event.getProduct_id(), event) != null) coalesced.increment();
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.low-stock.window-ms:5000}")
+    public void flush() {
+        // A snapshot, so an event a failed send puts back waits for the next flush.
+        for (String product_id : new ArrayList<>(pending.keySet())) {
+            LowStockEvent event = pending.remove(product_id);
+            if (event == null) continue;
+            try {
+                kafkaTemplate.send(topicName, product_id, event).completable().whenComplete((result, ex) -> {
+                    if (ex == null) published.increment();
+                    else sendFailed(event, ex);
+                });
+            } catch (RuntimeException ex) {
+                sendFailed(event, ex);
+            }
+        }
+    }
+
+    // Stock already at or below the threshold does not cross it again until it is restocked, so the
+    // event goes back for the next flush unless a newer one for the product has arrived meanwhile.
+    private void sendFailed(LowStockEvent event, Throwable ex) {
+        failed.increment();
+        LOGGER.warn("Low-stock event for {} was not published, retrying: {}", event.getProduct_id(), ex.getMessage());
+        if (enabled) pending.putIfAbsent(event.getProduct_id(), event);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (kafkaTemplate.getProducerFactory() instanceof DefaultKafkaProducerFactory)
+            ((DefaultKafkaProducerFactory<?, ?>) kafkaTemplate.getProducerFactory()).destroy();
+    }
+}
@@ -0,0 +1,104 @@
+package org.temire.inventory.service.kafka.producer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.temire.inventory.service.data.model.OutboxOrder;
+import org.temire.inventory.service.data.repositories.OutboxOrderRepository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains the order outbox to Kafka. Entries are deleted only once the broker has acknowledged
+ * them, and only while this relay's claim on them still stands; anything else is retried with
+ * exponential backoff. Delivery is at-least-once: a send that is acknowledged after the relay
+ * stopped waiting, or after another replica re-claimed the entry, is sent again, so consumers
+ * must tolerate duplicate order_ids. The wait for acknowledgements is bounded to half the lease
+ * to keep that rare.
+ */
+@Component
+public class OrderOutboxRelay {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderOutboxRelay.class);
+
+    private final OutboxOrderRepository outboxOrderRepository;
+    private final KafkaProducer kafkaProducer;
+    private final String owner = UUID.randomUUID().toString();
+
+    @Value("${inventory.orders.outbox.enabled:true}")
+    boolean enabled;
+
+    @Value("${inventory.orders.outbox.batch-size:500}")
+    int batchSize;
+
+    @Value("${inventory.orders.outbox.lease:60s}")
+    Duration lease;
+
+    @Value("${inventory.orders.outbox.retry-delay:1s}")
+    Duration retryDelay;
+
+    @Value("${inventory.orders.outbox.max-retry-delay:5m}")
+    Duration maxRetryDelay;
+
+    public OrderOutboxRelay(OutboxOrderRepository outboxOrderRepository, KafkaProducer kafkaProducer) {
+        this.outboxOrderRepository = outboxOrderRepository;
+        this.kafkaProducer = kafkaProducer;
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.orders.outbox.poll-interval-ms:200}")
+    public void relay() {
+        if (!enabled) return;
+        try {
+            List<OutboxOrder> batch;
+            boolean allSent;
+            do {
+                batch = outboxOrderRepository.claimBatch(owner, batchSize, lease);
+                allSent = relayBatch(batch);
+            } while (allSent && batch.size() == batchSize);
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Order outbox relay failed: {}", ex.getMessage());
+        }
+    }
+
+    private boolean relayBatch(List<OutboxOrder> batch) {
+        if (batch.isEmpty()) return true;
+        long deadline = System.nanoTime() + lease.dividedBy(2).toNanos();
+        List<CompletableFuture<Boolean>> sends = new ArrayList<>(batch.size());
+        for (OutboxOrder entry : batch) {
+            sends.add(kafkaProducer.sendMessage(entry.getOrder()).handle((result, ex) -> ex == null));
+        }
+
+        List<String> sent = new ArrayList<>(batch.size());
+        List<OutboxOrder> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            if (acknowledged(sends.get(i), deadline)) sent.add(batch.get(i).getOrder_id());
+            else failed.add(batch.get(i));
+        }
+        if (!sent.isEmpty()) outboxOrderRepository.deleteClaimed(batch.get(0).getClaim_id(), sent);
+        if (!failed.isEmpty()) {
+            outboxOrderRepository.scheduleRetry(failed, retryDelay, maxRetryDelay);
+            LOGGER.warn("{} of {} outbox orders were not acknowledged and will be retried", failed.size(), batch.size());
+        }
+        return failed.isEmpty();
+    }
+
+    private static boolean acknowledged(CompletableFuture<Boolean> send, long deadline) {
+        try {
+            return send.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException ex) {
+            return false;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.temire.inventory.service.kafka.producer;
+
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.stereotype.Service;
+import org.temire.inventory.service.data.dto.OrderResult;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@Service
+public class OrderResultProducer {
+
+    private final DefaultKafkaProducerFactory<String, OrderResult> producerFactory;
+    private final KafkaTemplate<String, OrderResult> kafkaTemplate;
+    private final String topicName;
+
+    // Built here rather than exposed as beans so Boot's own order template stays auto-configured.
+    public OrderResultProducer(KafkaProperties kafkaProperties,
+                               @Value("${kafka.producer.order-result.name}") String topicName) {
+        JsonSerializer<OrderResult> valueSerializer = new JsonSerializer<>();
+        valueSerializer.setAddTypeInfo(false);
+        this.producerFactory = new DefaultKafkaProducerFactory<>(kafkaProperties.buildProducerProperties(),
+                new StringSerializer(), valueSerializer);
+        this.kafkaTemplate = new KafkaTemplate<>(producerFactory);
+        this.topicName = topicName;
+    }
+
+    public CompletableFuture<Void> sendAll(List<OrderResult> results) {
+        CompletableFuture<?>[] sent = new CompletableFuture<?>[results.size()];
+        for (int i = 0; i < results.size(); i++) {
+            OrderResult result = results.get(i);
+            sent[i] = kafkaTemplate.send(topicName, result.getOrder_id(), result).completable();
+        }
+        return CompletableFuture.allOf(sent);
+    }
+
+    @PreDestroy
+    public void close() {
+        producerFactory.destroy();
+    }
+}
@@ -0,0 +1,222 @@
+package org.temire.inventory.service.kafka.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.temire.inventory.service.data.dto.OrderProduct;
+import org.temire.inventory.service.data.model.Order;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Schema-based binary layout for {@link Order}. Fields are written in a fixed order with no
+ * names on the wire: a two byte header (magic, version), varint lengths and counts, UTF-8
+ * strings, IEEE doubles and dates as epoch days. Any change to the field list needs a new
+ * version so older payloads can still be read.
+ */
+public final class OrderBinaryCodec {
+
+    static final byte MAGIC = 0x00;
+    static final byte VERSION_1 = 0x01;
+
+    private OrderBinaryCodec() {
+    }
+
+    public static byte[] encode(Order order) {
+        Writer out = new Writer(256);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION_1);
+        out.writeString(order.getOrder_id());
+        List<OrderProduct> items = order.getItems();
+        if (items == null) {
+            out.writeVarInt(0);
+        } else {
+            out.writeVarInt(items.size() + 1);
+            for (OrderProduct item : items) {
+                out.writeString(item.getProduct_id());
+                out.writeString(item.getName());
+                out.writeString(item.getDescription());
+                out.writeDouble(item.getOrderPrice());
+                out.writeNullableInt(item.getQuantity());
+            }
+        }
+        out.writeDouble(order.getTotal_order_value());
+        out.writeDate(order.getOrder_date());
+        out.writeDate(order.getFulfillment_date());
+        out.writeString(order.getDelivery_address());
+        out.writeString(order.getCustomer_name());
+        out.writeString(order.getCustomer_email());
+        out.writeString(order.getCustomer_phone());
+        out.writeByte(order.isFulfilled() ? (byte) 1 : (byte) 0);
+        return out.toByteArray();
+    }
+
+    public static boolean isBinary(byte[] data) {
+        return data.length > 1 && data[0] == MAGIC;
+    }
+
+    public static Order decode(byte[] data) {
+        Reader in = new Reader(data);
+        if (in.readByte() != MAGIC) throw new SerializationException("Not a binary order payload");
+        byte version = in.readByte();
+        if (version != VERSION_1) throw new SerializationException("Unsupported order payload version " + version);
+
+        Order order = new Order();
+        order.setOrder_id(in.readString());
+        int itemCount = in.readVarInt();
+        if (itemCount > 0) {
+            List<OrderProduct> items = new ArrayList<>(itemCount - 1);
+            for (int i = 1; i < itemCount; i++) {
+                OrderProduct item = new OrderProduct();
+                item.setProduct_id(in.readString());
+                item.setName(in.readString());
+                item.setDescription(in.readString());
+                item.setOrderPrice(in.readDouble());
+                item.setQuantity(in.readNullableInt());
+                items.add(item);
+            }
+            order.setItems(items);
+        }
+        order.setTotal_order_value(in.readDouble());
+        order.setOrder_date(in.readDate());
+        order.setFulfillment_date(in.readDate());
+        order.setDelivery_address(in.readString());
+        order.setCustomer_name(in.readString());
+        order.setCustomer_email(in.readString());
+        order.setCustomer_phone(in.readString());
+        order.setFulfilled(in.readByte() != 0);
+        return order;
+    }
+
+    // Nullable values are written with a varint that is one higher than the value's
+    // length (or zigzag value), leaving 0 to mean null.
+    private static final class Writer {
+        private byte[] buf;
+        private int pos;
+
+        Writer(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        void writeByte(byte b) {
+            ensure(1);
+            buf[pos++] = b;
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value & 0xFFFFFFFFL);
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buf[pos++] = (byte) value;
+        }
+
+        void writeNullableInt(Integer value) {
+            if (value == null) writeVarLong(0);
+            else writeVarLong(zigzag(value) + 1);
+        }
+
+        void writeDouble(double value) {
+            long bits = Double.doubleToRawLongBits(value);
+            ensure(8);
+            for (int i = 0; i < 8; i++) buf[pos++] = (byte) (bits >>> (8 * i));
+        }
+
+        void writeDate(LocalDate date) {
+            if (date == null) writeVarLong(0);
+            else writeVarLong(zigzag(date.toEpochDay()) + 1);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buf, pos, bytes.length);
+            pos += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] buf;
+        private int pos;
+
+        Reader(byte[] buf) {
+            this.buf = buf;
+        }
+
+        byte readByte() {
+            if (pos >= buf.length) throw new SerializationException("Truncated order payload");
+            return buf[pos++];
+        }
+
+        int readVarInt() {
+            long value = readVarLong();
+            if (value > Integer.MAX_VALUE) throw new SerializationException("Corrupt order payload");
+            return (int) value;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new SerializationException("Corrupt order payload");
+        }
+
+        Integer readNullableInt() {
+            long value = readVarLong();
+            return value == 0 ? null : (int) unzigzag(value - 1);
+        }
+
+        double readDouble() {
+            if (pos + 8 > buf.length) throw new SerializationException("Truncated order payload");
+            long bits = 0;
+            for (int i = 0; i < 8; i++) bits |= (long) (buf[pos++] & 0xFF) << (8 * i);
+            return Double.longBitsToDouble(bits);
+        }
+
+        LocalDate readDate() {
+            long value = readVarLong();
+            return value == 0 ? null : LocalDate.ofEpochDay(unzigzag(value - 1));
+        }
+
+        String readString() {
+            int length = readVarInt();
+            if (length == 0) return null;
+            length -= 1;
+            if (pos + length > buf.length) throw new SerializationException("Truncated order payload");
+            String value = new String(buf, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            return value;
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
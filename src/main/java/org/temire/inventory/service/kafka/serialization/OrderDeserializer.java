@@ -0,0 +1,28 @@
+package org.temire.inventory.service.kafka.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.temire.inventory.service.data.model.Order;
+
+import java.io.IOException;
+
+/**
+ * Reads both wire formats: binary payloads start with the codec's magic byte,
+ * anything else is treated as JSON.
+ */
+public class OrderDeserializer implements Deserializer<Order> {
+
+    private final ObjectMapper objectMapper = OrderJson.mapper();
+
+    @Override
+    public Order deserialize(String topic, byte[] data) {
+        if (data == null || data.length == 0) return null;
+        if (OrderBinaryCodec.isBinary(data)) return OrderBinaryCodec.decode(data);
+        try {
+            return objectMapper.readValue(data, Order.class);
+        } catch (IOException e) {
+            throw new SerializationException("Could not deserialize order from topic " + topic, e);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package org.temire.inventory.service.kafka.serialization;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+import org.temire.inventory.service.data.model.Order;
+
+import java.util.Map;
+
+public class OrderSerializer implements Serializer<Order> {
+
+    public static final String FORMAT_CONFIG = "order.serializer.format";
+
+    private final ObjectMapper objectMapper = OrderJson.mapper();
+    private boolean json;
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object format = configs.get(FORMAT_CONFIG);
+        json = format != null && "json".equalsIgnoreCase(format.toString());
+    }
+
+    @Override
+    public byte[] serialize(String topic, Order order) {
+        if (order == null) return null;
+        if (!json) return OrderBinaryCodec.encode(order);
+        try {
+            return objectMapper.writeValueAsBytes(order);
+        } catch (JsonProcessingException e) {
+            throw new SerializationException("Could not serialize order " + order.getOrder_id(), e);
+        }
+    }
+}
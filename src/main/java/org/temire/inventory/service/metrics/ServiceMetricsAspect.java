@@ -0,0 +1,85 @@
+package org.temire.inventory.service.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Times every public service method as inventory.service.method, tagged with the service, the method
+ * and the outcome: the GenericResponseDTO code when the method returns one, "ok" for other results
+ * and "error" (plus the exception type) when it throws. Asynchronous results are timed until they
+ * complete.
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    static final String METRIC = "inventory.service.method";
+    private static final String OK = "ok";
+    private static final String ERROR = "error";
+    private static final String NONE = "none";
+
+    private final MeterRegistry meterRegistry;
+
+    public ServiceMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(public * org.temire.inventory.service.services.*Service.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        String service = joinPoint.getSignature().getDeclaringType().getSimpleName();
+        String method = joinPoint.getSignature().getName();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable ex) {
+            stop(sample, service, method, null, ex);
+            throw ex;
+        }
+        if (result instanceof CompletableFuture) {
+            return ((CompletableFuture<?>) result).whenComplete((value, ex) -> stop(sample, service, method, value, ex));
+        }
+        if (result instanceof Mono) {
+            return Mono.defer(() -> {
+                Timer.Sample subscribed = Timer.start(meterRegistry);
+                return ((Mono<?>) result)
+                        .doOnSuccess(value -> stop(subscribed, service, method, value, null))
+                        .doOnError(ex -> stop(subscribed, service, method, null, ex));
+            });
+        }
+        if (result instanceof Flux) {
+            return Flux.defer(() -> {
+                Timer.Sample subscribed = Timer.start(meterRegistry);
+                return ((Flux<?>) result)
+                        .doOnComplete(() -> stop(subscribed, service, method, null, null))
+                        .doOnError(ex -> stop(subscribed, service, method, null, ex));
+            });
+        }
+        stop(sample, service, method, result, null);
+        return result;
+    }
+
+    private void stop(Timer.Sample sample, String service, String method, Object result, Throwable ex) {
+        if (ex instanceof CompletionException && ex.getCause() != null) ex = ex.getCause();
+        String outcome;
+        if (ex != null) outcome = ERROR;
+        else if (result instanceof GenericResponseDTO && ((GenericResponseDTO) result).getCode() != null)
+            outcome = ((GenericResponseDTO) result).getCode();
+        else outcome = OK;
+        sample.stop(Timer.builder(METRIC)
+                .description("Latency of service methods by outcome")
+                .tags("service", service, "method", method, "code", outcome,
+                        "exception", ex == null ? NONE : ex.getClass().getSimpleName())
+                .register(meterRegistry));
+    }
+}
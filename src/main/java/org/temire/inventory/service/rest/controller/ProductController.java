@@ -1,65 +1,168 @@
 package org.temire.inventory.service.rest.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.temire.inventory.service.cache.ProductCache;
 import org.temire.inventory.service.data.model.Order;
 import org.temire.inventory.service.data.model.Product;
-import org.temire.inventory.service.data.repositories.ProductRepository;
+import org.temire.inventory.service.data.model.StockLocation;
 import org.temire.inventory.service.rest.response.GenericResponseDTO;
 import org.temire.inventory.service.services.ProductService;
+import org.temire.inventory.service.services.StockAllocationService;
+import org.temire.inventory.service.services.StockHoldService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/products")
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ProductController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final String EXPORT_TIMEOUT = ProductController.class.getName() + ".EXPORT_TIMEOUT";
+
     @Autowired
     ProductService productService;
 
     @Autowired
-    ProductRepository productRepository;
+    StockHoldService stockHoldService;
+
+    @Autowired
+    StockAllocationService stockAllocationService;
+
+    @Autowired
+    ProductCache productCache;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${inventory.products.export.timeout:1h}")
+    Duration exportTimeout = Duration.ofHours(1);
 
     @GetMapping("/all")
-    public ResponseEntity<GenericResponseDTO> all(Pageable pageable) {
-        GenericResponseDTO genericResponseDTO = productService.findAll(pageable);
+    public ResponseEntity<GenericResponseDTO> all(Pageable pageable,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(defaultValue = "true") boolean count,
+                                                  @RequestParam(required = false) String fields) {
+        GenericResponseDTO genericResponseDTO;
+        if (cursor != null) genericResponseDTO = productService.findAllByCursor(cursor, pageable.getPageSize(), fields);
+        else if (!count) genericResponseDTO = productService.findAllSlice(pageable, fields);
+        else genericResponseDTO = productService.findAll(pageable, fields);
         return new ResponseEntity<>(genericResponseDTO, genericResponseDTO.getStatus());
     }
 
     @GetMapping("/available")
-    public ResponseEntity<GenericResponseDTO> available(Pageable pageable) {
-        GenericResponseDTO genericResponseDTO = productService.findAllAvailable(pageable,0);
+    public ResponseEntity<GenericResponseDTO> available(Pageable pageable,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) String fields) {
+        GenericResponseDTO genericResponseDTO = cursor != null
+                ? productService.findAllAvailableByCursor(cursor, pageable.getPageSize(), 0, fields)
+                : productService.findAllAvailable(pageable, 0, fields);
+        return new ResponseEntity<>(genericResponseDTO, genericResponseDTO.getStatus());
+    }
+
+    // product_id and quantity only, for clients that poll stock levels.
+    @GetMapping("/stock")
+    public ResponseEntity<GenericResponseDTO> stock(Pageable pageable,
+                                                    @RequestParam(required = false) List<String> ids,
+                                                    @RequestParam(required = false) String cursor) {
+        GenericResponseDTO genericResponseDTO = ids != null
+                ? productService.findStock(ids)
+                : productService.findStockByCursor(cursor, pageable.getPageSize());
         return new ResponseEntity<>(genericResponseDTO, genericResponseDTO.getStatus());
     }
 
+    // One JSON document per line, written while the cursor is read, so memory stays flat
+    // whatever the catalog size. Only this request gets the long timeout; every other async
+    // request keeps spring.mvc.async.request-timeout.
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(required = false) Integer minQuantity,
+                                                        NativeWebRequest webRequest) {
+        WebAsyncUtils.getAsyncManager(webRequest).registerCallableInterceptor(EXPORT_TIMEOUT, new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                if (request instanceof AsyncWebRequest) ((AsyncWebRequest) request).setTimeout(exportTimeout.toMillis());
+            }
+        });
+        ObjectWriter writer = objectMapper.writerFor(Product.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = out -> {
+            try (Stream<Product> products = productService.streamCatalog(minQuantity);
+                 JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                Iterator<Product> iterator = products.iterator();
+                while (iterator.hasNext()) {
+                    writer.writeValue(generator, iterator.next());
+                    generator.writeRaw('\n');
+                }
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
+    // A matching If-None-Match is answered from the version alone, without loading the product.
     @GetMapping("/id/{product_id}")
-    public ResponseEntity<GenericResponseDTO> id(@PathVariable String product_id) {
-        Optional<Product> seen = productRepository.findById(product_id);
+    public ResponseEntity<GenericResponseDTO> id(@PathVariable String product_id,
+                                                 @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ifNoneMatch != null) {
+            Optional<Long> version = productService.findVersion(product_id);
+            if (version.isPresent() && ProductETags.matches(ifNoneMatch, version.get()))
+                return ProductETags.notModified(version.get());
+        }
+        Optional<Product> seen = productService.findById(product_id);
         GenericResponseDTO response;
         if(seen.isPresent())
             response = new GenericResponseDTO("00", HttpStatus.OK, "Product updated Successfully!", seen.get());
         else
             response = new GenericResponseDTO("99", HttpStatus.NOT_FOUND, "No Such product found!", null);
 
-        return new ResponseEntity<>(response, response.getStatus());
+        return ProductETags.withETag(response, seen.map(Product::getVersion).orElse(null));
     }
 
     @PostMapping("/new")
     public ResponseEntity<GenericResponseDTO> create(@RequestBody Product product) {
-        GenericResponseDTO response = new GenericResponseDTO();
-        try{
-            Product updated = productRepository.save(product);
-            response = new GenericResponseDTO("00", HttpStatus.OK, "Product updated Successfully!", updated);
+        GenericResponseDTO response = productService.update(product);
+        return new ResponseEntity<>(response, response.getStatus());
+    }
 
-        }catch(Exception ex){
-            response = new GenericResponseDTO("99", HttpStatus.EXPECTATION_FAILED , "Error updating product!", ex.getMessage());
+    // Accepts a JSON array or NDJSON and binds one product at a time straight off the request body.
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, "application/x-ndjson"})
+    public ResponseEntity<GenericResponseDTO> bulk(InputStream body) throws IOException {
+        try (MappingIterator<Product> products = objectMapper.readerFor(Product.class).readValues(body)) {
+            GenericResponseDTO response = productService.ingest(products);
+            return new ResponseEntity<>(response, response.getStatus());
         }
+    }
+
+    @GetMapping("/cache/stats")
+    public ResponseEntity<GenericResponseDTO> cacheStats() {
+        GenericResponseDTO response = new GenericResponseDTO("00", HttpStatus.OK, "Product cache statistics", productCache.stats());
         return new ResponseEntity<>(response, response.getStatus());
     }
 
@@ -76,8 +179,68 @@ public class ProductController {
     }
 
     @PostMapping("/place-order")
-    public ResponseEntity<GenericResponseDTO> placeOrder(@RequestBody Order order) {
-        GenericResponseDTO response = productService.makeOrder(order);
+    public CompletableFuture<ResponseEntity<GenericResponseDTO>> placeOrder(@RequestBody Order order,
+                                                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return productService.makeOrderAsync(order, idempotencyKey)
+                .thenApply(response -> new ResponseEntity<>(response, response.getStatus()));
+    }
+
+    @PostMapping("/reserve")
+    public ResponseEntity<GenericResponseDTO> reserve(@RequestBody Order order) {
+        GenericResponseDTO response = productService.reserveOrder(order);
+        return new ResponseEntity<>(response, response.getStatus());
+    }
+
+    @PostMapping("/holds")
+    public ResponseEntity<GenericResponseDTO> hold(@RequestBody Order order,
+                                                   @RequestParam(required = false) Long ttlSeconds) {
+        GenericResponseDTO response = stockHoldService.hold(order, ttlSeconds == null ? null : Duration.ofSeconds(ttlSeconds));
+        return new ResponseEntity<>(response, response.getStatus());
+    }
+
+    @PostMapping("/holds/{hold_id}/confirm")
+    public ResponseEntity<GenericResponseDTO> confirmHold(@PathVariable String hold_id) {
+        GenericResponseDTO response = stockHoldService.confirm(hold_id);
+        return new ResponseEntity<>(response, response.getStatus());
+    }
+
+    @DeleteMapping("/holds/{hold_id}")
+    public ResponseEntity<GenericResponseDTO> releaseHold(@PathVariable String hold_id) {
+        GenericResponseDTO response = stockHoldService.release(hold_id);
+        return new ResponseEntity<>(response, response.getStatus());
+    }
+
+    @PostMapping("/allocate")
+    public ResponseEntity<GenericResponseDTO> allocate(@RequestBody Order order,
+                                                       @RequestParam(required = false) String strategy,
+                                                       @RequestParam(required = false) Double lat,
+                                                       @RequestParam(required = false) Double lon) {
+        GenericResponseDTO response = stockAllocationService.allocate(order, strategy, lat, lon);
+        return new ResponseEntity<>(response, response.getStatus());
+    }
+
+    @GetMapping("/{product_id}/stock")
+    public ResponseEntity<GenericResponseDTO> locationStock(@PathVariable String product_id) {
+        GenericResponseDTO response = stockAllocationService.findLocationStock(product_id);
+        return new ResponseEntity<>(response, response.getStatus());
+    }
+
+    @PutMapping("/{product_id}/stock/{location_id}")
+    public ResponseEntity<GenericResponseDTO> setLocationStock(@PathVariable String product_id, @PathVariable String location_id,
+                                                               @RequestParam int quantity) {
+        GenericResponseDTO response = stockAllocationService.setLocationStock(product_id, location_id, quantity);
+        return new ResponseEntity<>(response, response.getStatus());
+    }
+
+    @PutMapping("/locations")
+    public ResponseEntity<GenericResponseDTO> saveLocation(@RequestBody StockLocation location) {
+        GenericResponseDTO response = stockAllocationService.saveLocation(location);
+        return new ResponseEntity<>(response, response.getStatus());
+    }
+
+    @GetMapping("/locations")
+    public ResponseEntity<GenericResponseDTO> locations() {
+        GenericResponseDTO response = stockAllocationService.findLocations();
         return new ResponseEntity<>(response, response.getStatus());
     }
 }
@@ -0,0 +1,41 @@
+package org.temire.inventory.service.rest.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+
+/**
+ * Strong ETags for /products/id, taken from Product.version. Responses carry no-cache, so a proxy
+ * may keep them but has to revalidate, which a 304 answers without a body.
+ */
+final class ProductETags {
+
+    private ProductETags() {
+    }
+
+    static String of(long version) {
+        return "\"" + version + "\"";
+    }
+
+    // If-None-Match uses the weak comparison, so a W/ prefix still matches.
+    static boolean matches(String ifNoneMatch, long version) {
+        String etag = of(version);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) tag = tag.substring(2);
+            if (tag.equals("*") || tag.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    static ResponseEntity<GenericResponseDTO> notModified(long version) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(of(version)).cacheControl(CacheControl.noCache()).build();
+    }
+
+    static ResponseEntity<GenericResponseDTO> withETag(GenericResponseDTO response, Long version) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(response.getStatus());
+        if (version != null) builder.eTag(of(version)).cacheControl(CacheControl.noCache());
+        return builder.body(response);
+    }
+}
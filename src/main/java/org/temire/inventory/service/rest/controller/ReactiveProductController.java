@@ -0,0 +1,226 @@
+package org.temire.inventory.service.rest.controller;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.temire.inventory.service.cache.ProductCache;
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.data.model.Product;
+import org.temire.inventory.service.data.model.StockLocation;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+import org.temire.inventory.service.services.ProductService;
+import org.temire.inventory.service.services.ReactiveProductService;
+import org.temire.inventory.service.services.StockAllocationService;
+import org.temire.inventory.service.services.StockHoldService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * The /products routes of {@link ProductController} on WebFlux, active when the application is
+ * started with spring.main.web-application-type=reactive.
+ */
+@RestController
+@RequestMapping("/products")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProductController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final ReactiveProductService reactiveProductService;
+    private final ProductService productService;
+    private final StockHoldService stockHoldService;
+    private final StockAllocationService stockAllocationService;
+    private final ProductCache productCache;
+
+    public ReactiveProductController(ReactiveProductService reactiveProductService, ProductService productService,
+                                     StockHoldService stockHoldService, StockAllocationService stockAllocationService,
+                                     ProductCache productCache) {
+        this.reactiveProductService = reactiveProductService;
+        this.productService = productService;
+        this.stockHoldService = stockHoldService;
+        this.stockAllocationService = stockAllocationService;
+        this.productCache = productCache;
+    }
+
+    @GetMapping("/all")
+    public Mono<ResponseEntity<GenericResponseDTO>> all(Pageable pageable,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "true") boolean count,
+                                                        @RequestParam(required = false) String fields) {
+        Mono<GenericResponseDTO> response;
+        if (fields != null) response = blocking(() -> cursor != null
+                ? productService.findAllByCursor(cursor, pageable.getPageSize(), fields)
+                : count ? productService.findAll(pageable, fields) : productService.findAllSlice(pageable, fields));
+        else if (cursor != null) response = reactiveProductService.findAllByCursor(cursor, pageable.getPageSize());
+        else if (!count) response = reactiveProductService.findAllSlice(pageable);
+        else response = reactiveProductService.findAll(pageable);
+        return response.map(ReactiveProductController::toEntity);
+    }
+
+    @GetMapping("/available")
+    public Mono<ResponseEntity<GenericResponseDTO>> available(Pageable pageable,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) String fields) {
+        Mono<GenericResponseDTO> response;
+        if (fields != null) response = blocking(() -> cursor != null
+                ? productService.findAllAvailableByCursor(cursor, pageable.getPageSize(), 0, fields)
+                : productService.findAllAvailable(pageable, 0, fields));
+        else if (cursor != null) response = reactiveProductService.findAllAvailableByCursor(cursor, pageable.getPageSize(), 0);
+        else response = reactiveProductService.findAllAvailable(pageable, 0);
+        return response.map(ReactiveProductController::toEntity);
+    }
+
+    @GetMapping("/stock")
+    public Mono<ResponseEntity<GenericResponseDTO>> stock(Pageable pageable,
+                                                          @RequestParam(required = false) List<String> ids,
+                                                          @RequestParam(required = false) String cursor) {
+        return blocking(() -> ids != null
+                ? productService.findStock(ids)
+                : productService.findStockByCursor(cursor, pageable.getPageSize()))
+                .map(ReactiveProductController::toEntity);
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    public Flux<Product> export(@RequestParam(required = false) Integer minQuantity) {
+        return reactiveProductService.streamCatalog(minQuantity);
+    }
+
+    @GetMapping("/id/{product_id}")
+    public Mono<ResponseEntity<GenericResponseDTO>> id(@PathVariable String product_id,
+                                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Mono<ResponseEntity<GenericResponseDTO>> full = Mono.defer(() -> reactiveProductService.findById(product_id))
+                .map(product -> ProductETags.withETag(
+                        new GenericResponseDTO("00", HttpStatus.OK, "Product updated Successfully!", product), product.getVersion()))
+                .defaultIfEmpty(toEntity(new GenericResponseDTO("99", HttpStatus.NOT_FOUND, "No Such product found!", null)));
+        if (ifNoneMatch == null) return full;
+        return reactiveProductService.findVersion(product_id)
+                .filter(version -> ProductETags.matches(ifNoneMatch, version))
+                .map(ProductETags::notModified)
+                .switchIfEmpty(full);
+    }
+
+    @PostMapping("/new")
+    public Mono<ResponseEntity<GenericResponseDTO>> create(@RequestBody Product product) {
+        return reactiveProductService.update(product).map(ReactiveProductController::toEntity);
+    }
+
+    // The ingest writes chunk by chunk through the blocking repository, so it runs off the event loop
+    // and pulls the decoded body as it goes.
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, NDJSON})
+    public Mono<ResponseEntity<GenericResponseDTO>> bulk(@RequestBody Flux<Product> products) {
+        return Mono.fromCallable(() -> productService.ingest(products.toIterable().iterator()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ReactiveProductController::toEntity);
+    }
+
+    @GetMapping("/cache/stats")
+    public Mono<ResponseEntity<GenericResponseDTO>> cacheStats() {
+        return Mono.just(toEntity(new GenericResponseDTO("00", HttpStatus.OK, "Product cache statistics", productCache.stats())));
+    }
+
+    @PutMapping("/update")
+    public Mono<ResponseEntity<GenericResponseDTO>> update(@RequestBody Product product) {
+        return reactiveProductService.update(product).map(ReactiveProductController::toEntity);
+    }
+
+    @PutMapping("/update-price/{product_id}/{price}")
+    public Mono<ResponseEntity<GenericResponseDTO>> updatePrice(@PathVariable String product_id, @PathVariable double price) {
+        return reactiveProductService.updatePrice(product_id, price).map(ReactiveProductController::toEntity);
+    }
+
+    @PostMapping("/place-order")
+    public Mono<ResponseEntity<GenericResponseDTO>> placeOrder(@RequestBody Order order,
+                                                               @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return reactiveProductService.makeOrder(order, idempotencyKey).map(ReactiveProductController::toEntity);
+    }
+
+    // Reservation is an ordered bulk write with compensation; it keeps the blocking implementation.
+    @PostMapping("/reserve")
+    public Mono<ResponseEntity<GenericResponseDTO>> reserve(@RequestBody Order order) {
+        return Mono.fromCallable(() -> productService.reserveOrder(order))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ReactiveProductController::toEntity);
+    }
+
+    // Holds share the bulk write path of /reserve, so they stay blocking as well.
+    @PostMapping("/holds")
+    public Mono<ResponseEntity<GenericResponseDTO>> hold(@RequestBody Order order,
+                                                         @RequestParam(required = false) Long ttlSeconds) {
+        return Mono.fromCallable(() -> stockHoldService.hold(order, ttlSeconds == null ? null : Duration.ofSeconds(ttlSeconds)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ReactiveProductController::toEntity);
+    }
+
+    @PostMapping("/holds/{hold_id}/confirm")
+    public Mono<ResponseEntity<GenericResponseDTO>> confirmHold(@PathVariable String hold_id) {
+        return Mono.fromCallable(() -> stockHoldService.confirm(hold_id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ReactiveProductController::toEntity);
+    }
+
+    @DeleteMapping("/holds/{hold_id}")
+    public Mono<ResponseEntity<GenericResponseDTO>> releaseHold(@PathVariable String hold_id) {
+        return Mono.fromCallable(() -> stockHoldService.release(hold_id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ReactiveProductController::toEntity);
+    }
+
+    // Allocation runs on the blocking repositories like /reserve.
+    @PostMapping("/allocate")
+    public Mono<ResponseEntity<GenericResponseDTO>> allocate(@RequestBody Order order,
+                                                             @RequestParam(required = false) String strategy,
+                                                             @RequestParam(required = false) Double lat,
+                                                             @RequestParam(required = false) Double lon) {
+        return Mono.fromCallable(() -> stockAllocationService.allocate(order, strategy, lat, lon))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ReactiveProductController::toEntity);
+    }
+
+    @GetMapping("/{product_id}/stock")
+    public Mono<ResponseEntity<GenericResponseDTO>> locationStock(@PathVariable String product_id) {
+        return Mono.fromCallable(() -> stockAllocationService.findLocationStock(product_id))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ReactiveProductController::toEntity);
+    }
+
+    @PutMapping("/{product_id}/stock/{location_id}")
+    public Mono<ResponseEntity<GenericResponseDTO>> setLocationStock(@PathVariable String product_id,
+                                                                     @PathVariable String location_id,
+                                                                     @RequestParam int quantity) {
+        return Mono.fromCallable(() -> stockAllocationService.setLocationStock(product_id, location_id, quantity))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ReactiveProductController::toEntity);
+    }
+
+    @PutMapping("/locations")
+    public Mono<ResponseEntity<GenericResponseDTO>> saveLocation(@RequestBody StockLocation location) {
+        return Mono.fromCallable(() -> stockAllocationService.saveLocation(location))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ReactiveProductController::toEntity);
+    }
+
+    @GetMapping("/locations")
+    public Mono<ResponseEntity<GenericResponseDTO>> locations() {
+        return Mono.fromCallable(stockAllocationService::findLocations)
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ReactiveProductController::toEntity);
+    }
+
+    // Projected and stock reads share the blocking repository instead of a second copy on the reactive template.
+    private static Mono<GenericResponseDTO> blocking(Callable<GenericResponseDTO> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static ResponseEntity<GenericResponseDTO> toEntity(GenericResponseDTO response) {
+        return new ResponseEntity<>(response, response.getStatus());
+    }
+}
@@ -3,12 +3,16 @@ package org.temire.inventory.service.services;
 import org.springframework.data.domain.Pageable;
 import org.temire.inventory.service.CustomException;
 import org.temire.inventory.service.data.dto.OrderProduct;
+import org.temire.inventory.service.data.dto.OrderResult;
 import org.temire.inventory.service.data.model.Order;
 import org.temire.inventory.service.data.model.Product;
 import org.temire.inventory.service.rest.response.GenericResponseDTO;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 
 public interface ProductService {
@@ -17,13 +21,47 @@ public interface ProductService {
 
     GenericResponseDTO findAll(Pageable pageable);
 
+    GenericResponseDTO findAllSlice(Pageable pageable);
+
+    GenericResponseDTO findAllByCursor(String cursor, int size);
+
     GenericResponseDTO update(Product p);
 
+    GenericResponseDTO ingest(Iterator<Product> products);
+
     Optional<Product> findById(String id);
 
+    Optional<Long> findVersion(String id);
+
+    Stream<Product> streamCatalog(Integer minQuantity);
+
     GenericResponseDTO updatePrice(String product_id, double price);
 
     GenericResponseDTO findAllAvailable(Pageable pageable, int qty);
 
+    GenericResponseDTO findAllAvailableByCursor(String cursor, int size, int qty);
+
+    GenericResponseDTO findAll(Pageable pageable, String fields);
+
+    GenericResponseDTO findAllSlice(Pageable pageable, String fields);
+
+    GenericResponseDTO findAllByCursor(String cursor, int size, String fields);
+
+    GenericResponseDTO findAllAvailable(Pageable pageable, int qty, String fields);
+
+    GenericResponseDTO findAllAvailableByCursor(String cursor, int size, int qty, String fields);
+
+    GenericResponseDTO findStock(List<String> product_ids);
+
+    GenericResponseDTO findStockByCursor(String cursor, int size);
+
     GenericResponseDTO makeOrder(Order order);
+
+    CompletableFuture<GenericResponseDTO> makeOrderAsync(Order order);
+
+    CompletableFuture<GenericResponseDTO> makeOrderAsync(Order order, String idempotencyKey);
+
+    GenericResponseDTO reserveOrder(Order order);
+
+    List<OrderResult> fulfilOrders(List<Order> orders);
 }
@@ -0,0 +1,34 @@
+package org.temire.inventory.service.services;
+
+import org.springframework.data.domain.Pageable;
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.data.model.Product;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+
+public interface ReactiveProductService {
+
+    Mono<GenericResponseDTO> findAll(Pageable pageable);
+
+    Mono<GenericResponseDTO> findAllSlice(Pageable pageable);
+
+    Mono<GenericResponseDTO> findAllByCursor(String cursor, int size);
+
+    Mono<GenericResponseDTO> update(Product p);
+
+    Mono<Product> findById(String id);
+
+    Mono<Long> findVersion(String id);
+
+    Flux<Product> streamCatalog(Integer minQuantity);
+
+    Mono<GenericResponseDTO> updatePrice(String product_id, double price);
+
+    Mono<GenericResponseDTO> findAllAvailable(Pageable pageable, int qty);
+
+    Mono<GenericResponseDTO> findAllAvailableByCursor(String cursor, int size, int qty);
+
+    Mono<GenericResponseDTO> makeOrder(Order order, String idempotencyKey);
+}
@@ -0,0 +1,18 @@
+package org.temire.inventory.service.services;
+
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.data.model.StockLocation;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+
+public interface StockAllocationService {
+
+    GenericResponseDTO allocate(Order order, String strategy, Double latitude, Double longitude);
+
+    GenericResponseDTO setLocationStock(String product_id, String location_id, int quantity);
+
+    GenericResponseDTO findLocationStock(String product_id);
+
+    GenericResponseDTO saveLocation(StockLocation location);
+
+    GenericResponseDTO findLocations();
+}
@@ -0,0 +1,15 @@
+package org.temire.inventory.service.services;
+
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+
+import java.time.Duration;
+
+public interface StockHoldService {
+
+    GenericResponseDTO hold(Order order, Duration ttl);
+
+    GenericResponseDTO confirm(String hold_id);
+
+    GenericResponseDTO release(String hold_id);
+}
@@ -0,0 +1,40 @@
+package org.temire.inventory.service.services.impl;
+
+import org.temire.inventory.service.data.model.StockLocation;
+
+import java.util.Map;
+
+/**
+ * What a strategy may know beyond the stock itself: where the order is going, when the caller
+ * said, and the locations' details when the strategy asked for them.
+ */
+public final class AllocationContext {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private final Double latitude;
+    private final Double longitude;
+    private final Map<String, StockLocation> locations;
+
+    public AllocationContext(Double latitude, Double longitude, Map<String, StockLocation> locations) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.locations = locations;
+    }
+
+    public boolean hasOrigin() {
+        return latitude != null && longitude != null;
+    }
+
+    // Great-circle distance; a location without coordinates is treated as the farthest.
+    public double distanceTo(String location_id) {
+        StockLocation location = locations.get(location_id);
+        if (!hasOrigin() || location == null || location.getLatitude() == null || location.getLongitude() == null)
+            return Double.MAX_VALUE;
+        double dLat = Math.toRadians(location.getLatitude() - latitude);
+        double dLon = Math.toRadians(location.getLongitude() - longitude);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) + Math.cos(Math.toRadians(latitude))
+                * Math.cos(Math.toRadians(location.getLatitude())) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+}
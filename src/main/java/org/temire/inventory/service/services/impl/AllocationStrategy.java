@@ -0,0 +1,22 @@
+package org.temire.inventory.service.services.impl;
+
+import org.temire.inventory.service.data.dto.LocationAllocation;
+import org.temire.inventory.service.data.model.LocationStock;
+
+import java.util.List;
+
+/**
+ * Decides which locations an order line is taken from. Every Spring bean implementing this is
+ * available to /products/allocate under its name().
+ */
+public interface AllocationStrategy {
+
+    String name();
+
+    // An empty list means the line cannot be covered this way.
+    List<LocationAllocation> allocate(String product_id, int quantity, List<LocationStock> stock, AllocationContext context);
+
+    default boolean needsLocations() {
+        return false;
+    }
+}
@@ -0,0 +1,312 @@
+package org.temire.inventory.service.services.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.temire.inventory.service.cache.ProductCache;
+import org.temire.inventory.service.data.model.Product;
+import org.temire.inventory.service.data.repositories.ProductRepository;
+import org.temire.inventory.service.kafka.producer.LowStockProducer;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+/**
+ * Flash-sale mode for the SKUs listed in inventory.hot-stock.skus. Each instance escrows an
+ * allotment of a hot SKU's stock in MongoDB (hot_held) and sells from it with a compare-and-set on
+ * a plain long, so a sale does not leave the JVM. The flush tick writes the sales behind with one
+ * $inc per SKU, however many units were sold since the last one, and tops the allotment up.
+ * quantity in MongoDB therefore stays the real stock, short only of sales not yet flushed; other
+ * write paths can take only the units no ledger holds, and send hot lines through takeAll().
+ * <p>
+ * The held and unflushed sold counts live in a memory-mapped journal, so when a process dies
+ * without shutting down, the next start settles whatever it still had. The operating system writes
+ * the pages even if the JVM crashes; a crash between a flush and its journal update settles that
+ * flush's sales twice, which under-sells rather than over-sells.
+ */
+@Component
+public class HotStockLedger {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HotStockLedger.class);
+    // Per slot: units held in the high half, units sold but not yet flushed in the low half, both
+    // updated in one compare-and-set. Sold may go negative when a sale is undone after its flush.
+    private static final VarHandle SLOT = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final int MAGIC = 0x484f5432;
+    // magic, slot count, then one slot per SKU, then the SKU ids.
+    private static final int HEADER = 8;
+
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final LowStockProducer lowStockProducer;
+    private final boolean enabled;
+    private final String[] skus;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final Object[] claimLocks;
+    private final int allotment;
+    private final Path journalPath;
+    private final Counter claimed;
+    private final Counter returned;
+    private MappedByteBuffer journal;
+    private volatile boolean open;
+
+    public HotStockLedger(ProductRepository productRepository, ProductCache productCache, LowStockProducer lowStockProducer,
+                          MeterRegistry meterRegistry,
+                          @Value("${inventory.hot-stock.enabled:false}") boolean enabled,
+                          @Value("${inventory.hot-stock.skus:}") String[] skus,
+                          @Value("${inventory.hot-stock.allotment:500}") int allotment,
+                          @Value("${inventory.hot-stock.journal:hot-stock.journal}") String journalPath) {
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        this.lowStockProducer = lowStockProducer;
+        this.enabled = enabled;
+        this.skus = Arrays.stream(skus).map(String::trim).filter(sku -> !sku.isEmpty()).distinct().toArray(String[]::new);
+        this.claimLocks = new Object[this.skus.length];
+        for (int slot = 0; slot < this.skus.length; slot++) {
+            slots.put(this.skus[slot], slot);
+            claimLocks[slot] = new Object();
+            int gaugeSlot = slot;
+            Gauge.builder("inventory.hot_stock.held", this, ledger -> ledger.open ? ledger.held(gaugeSlot) : 0)
+                    .description("Units of a hot product this instance holds")
+                    .tag("product_id", this.skus[slot])
+                    .register(meterRegistry);
+        }
+        this.allotment = allotment;
+        this.journalPath = Paths.get(journalPath);
+        this.claimed = meterRegistry.counter("inventory.hot_stock.units", "direction", "claimed");
+        this.returned = meterRegistry.counter("inventory.hot_stock.units", "direction", "returned");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void open() {
+        if (!enabled || skus.length == 0 || open) return;
+        try {
+            returnPreviousRun();
+            createJournal();
+            open = true;
+            LOGGER.info("Hot stock ledger open for {}", Arrays.toString(skus));
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.warn("Hot stock ledger stays off, decrements go to MongoDB: {}", ex.getMessage());
+        }
+    }
+
+    public boolean isHot(String product_id) {
+        return open && slots.containsKey(product_id);
+    }
+
+    public boolean anyHot(Collection<String> product_ids) {
+        if (!open) return false;
+        for (String product_id : product_ids) if (slots.containsKey(product_id)) return true;
+        return false;
+    }
+
+    // Only the shortfall path reaches MongoDB, to escrow more stock before giving up.
+    public boolean take(String product_id, int quantity) {
+        int slot = slots.get(product_id);
+        int offset = offset(slot);
+        while (true) {
+            long current = (long) SLOT.getVolatile(journal, offset);
+            if (held(current) < quantity) {
+                if (!topUp(slot, quantity)) return false;
+                continue;
+            }
+            if (SLOT.compareAndSet(journal, offset, current, current - pack(quantity, -quantity))) return true;
+        }
+    }
+
+    // All-or-nothing across both sides: hot lines come out of the allotments, then rest writes the
+    // others (it gets the hot lines too, for anything else it records about them). A short line or
+    // a failure on either side puts the hot lines back.
+    public Optional<String> takeAll(Map<String, Integer> quantities,
+                                    BiFunction<Map<String, Integer>, Map<String, Integer>, Optional<String>> rest) {
+        Map<String, Integer> hot = new LinkedHashMap<>();
+        Map<String, Integer> cold = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> line : quantities.entrySet()) {
+            if (!isHot(line.getKey())) {
+                cold.put(line.getKey(), line.getValue());
+            } else if (take(line.getKey(), line.getValue())) {
+                hot.put(line.getKey(), line.getValue());
+            } else {
+                restoreAll(hot);
+                return Optional.of(line.getKey());
+            }
+        }
+        Optional<String> shortItem;
+        try {
+            shortItem = rest.apply(hot, cold);
+        } catch (RuntimeException ex) {
+            restoreAll(hot);
+            throw ex;
+        }
+        if (shortItem.isPresent()) restoreAll(hot);
+        return shortItem;
+    }
+
+    private void restoreAll(Map<String, Integer> taken) {
+        for (Map.Entry<String, Integer> line : taken.entrySet()) {
+            SLOT.getAndAdd(journal, offset(slots.get(line.getKey())), pack(line.getValue(), -line.getValue()));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.hot-stock.flush-interval-ms:100}")
+    public void flush() {
+        if (!open) return;
+        for (int slot = 0; slot < skus.length; slot++) {
+            try {
+                settleSales(slot);
+                if (held(slot) < allotment / 2) topUp(slot, allotment);
+            } catch (RuntimeException ex) {
+                LOGGER.warn("Could not flush hot stock for {}: {}", skus[slot], ex.getMessage());
+            }
+        }
+        journal.force();
+    }
+
+    // Low-stock events for hot products are raised here, once per flush.
+    private void settleSales(int slot) {
+        int sold = sold((long) SLOT.getVolatile(journal, offset(slot)));
+        if (sold == 0) return;
+        Optional<Product> updated = productRepository.settle(skus[slot], sold, 0);
+        SLOT.getAndAdd(journal, offset(slot), (long) -sold);
+        if (updated.isPresent()) {
+            productCache.put(updated.get());
+            if (sold > 0) lowStockProducer.onDecrement(updated.get(), sold);
+        } else productCache.invalidate(skus[slot]);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (!open) return;
+        open = false;
+        for (int slot = 0; slot < skus.length; slot++) {
+            long current = (long) SLOT.getAndSet(journal, offset(slot), 0L);
+            if (current == 0) continue;
+            try {
+                giveBack(skus[slot], sold(current), held(current));
+            } catch (RuntimeException ex) {
+                // Left in the journal for the next start to settle.
+                SLOT.getAndAdd(journal, offset(slot), current);
+                LOGGER.warn("Could not return {} units of {}: {}", held(current), skus[slot], ex.getMessage());
+            }
+        }
+        journal.force();
+    }
+
+    int held(int slot) {
+        return held((long) SLOT.getVolatile(journal, offset(slot)));
+    }
+
+    int sold(int slot) {
+        return sold((long) SLOT.getVolatile(journal, offset(slot)));
+    }
+
+    private static long pack(int held, int sold) {
+        return ((long) held << 32) + sold;
+    }
+
+    private static int sold(long slot) {
+        return (int) slot;
+    }
+
+    private static int held(long slot) {
+        return (int) ((slot - sold(slot)) >> 32);
+    }
+
+    // Claims are serialized per SKU so concurrent shortfalls do not each take a full allotment.
+    private boolean topUp(int slot, int needed) {
+        synchronized (claimLocks[slot]) {
+            if (!open) return false;
+            int held = held(slot);
+            if (held >= needed) return true;
+            int got = claim(skus[slot], Math.max(needed, allotment) - held);
+            if (got > 0) SLOT.getAndAdd(journal, offset(slot), pack(got, 0));
+            return held + got >= needed;
+        }
+    }
+
+    // Escrows up to wanted units; the guarded update only fails if the stock moved since the read.
+    private int claim(String product_id, int wanted) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            Optional<Product> product = productRepository.findById(product_id);
+            if (product.isEmpty() || product.get().getQuantity() == null) return 0;
+            Integer escrowed = product.get().getHot_held();
+            int units = Math.min(wanted, product.get().getQuantity() - (escrowed == null ? 0 : escrowed));
+            if (units <= 0) return 0;
+            if (productRepository.escrow(product_id, units)) {
+                productCache.invalidate(product_id);
+                claimed.increment(units);
+                return units;
+            }
+        }
+        return 0;
+    }
+
+    private void giveBack(String product_id, int sold, int held) {
+        productRepository.settle(product_id, sold, held);
+        productCache.invalidate(product_id);
+        returned.increment(held);
+    }
+
+    private void returnPreviousRun() throws IOException {
+        if (!Files.exists(journalPath)) return;
+        MappedByteBuffer previous;
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (channel.size() < HEADER) return;
+            previous = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        if (previous.getInt(0) != MAGIC) throw new IOException("Unrecognised hot stock journal " + journalPath);
+        int count = previous.getInt(4);
+        byte[] ids = new byte[previous.getInt(offset(count))];
+        previous.position(offset(count) + 4);
+        previous.get(ids);
+        String[] previousSkus = new String(ids, StandardCharsets.UTF_8).split("\n", -1);
+        for (int slot = 0; slot < count; slot++) {
+            long left = (long) SLOT.getVolatile(previous, offset(slot));
+            if (left == 0) continue;
+            giveBack(previousSkus[slot], sold(left), held(left));
+            SLOT.setVolatile(previous, offset(slot), 0L);
+            previous.force();
+            LOGGER.info("Settled {} sold and returned {} held units of {} from the previous run", sold(left), held(left),
+                    previousSkus[slot]);
+        }
+    }
+
+    private void createJournal() throws IOException {
+        byte[] ids = String.join("\n", skus).getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            journal = channel.map(FileChannel.MapMode.READ_WRITE, 0, offset(skus.length) + 4 + ids.length);
+        }
+        journal.putInt(0, MAGIC).putInt(4, skus.length).putInt(offset(skus.length), ids.length);
+        journal.position(offset(skus.length) + 4);
+        journal.put(ids);
+        journal.force();
+    }
+
+    private static int offset(int slot) {
+        return HEADER + 8 * slot;
+    }
+}
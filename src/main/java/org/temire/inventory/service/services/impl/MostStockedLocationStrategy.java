@@ -0,0 +1,28 @@
+package org.temire.inventory.service.services.impl;
+
+import org.springframework.stereotype.Component;
+import org.temire.inventory.service.data.dto.LocationAllocation;
+import org.temire.inventory.service.data.model.LocationStock;
+
+import java.util.Comparator;
+import java.util.List;
+
+// Ships each line whole from the location with the most of it, which keeps the others stocked.
+@Component
+public class MostStockedLocationStrategy implements AllocationStrategy {
+
+    @Override
+    public String name() {
+        return "most-stocked";
+    }
+
+    @Override
+    public List<LocationAllocation> allocate(String product_id, int quantity, List<LocationStock> stock, AllocationContext context) {
+        return stock.stream()
+                .filter(location -> location.getQuantity() != null)
+                .max(Comparator.comparingInt(LocationStock::getQuantity))
+                .filter(location -> location.getQuantity() >= quantity)
+                .map(location -> List.of(new LocationAllocation(product_id, location.getLocation_id(), quantity)))
+                .orElse(List.of());
+    }
+}
@@ -0,0 +1,36 @@
+package org.temire.inventory.service.services.impl;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.temire.inventory.service.CustomException;
+import org.temire.inventory.service.data.dto.LocationAllocation;
+import org.temire.inventory.service.data.model.LocationStock;
+
+import java.util.Comparator;
+import java.util.List;
+
+// Ships each line whole from the closest location that has all of it.
+@Component
+public class NearestLocationStrategy implements AllocationStrategy {
+
+    @Override
+    public String name() {
+        return "nearest";
+    }
+
+    @Override
+    public List<LocationAllocation> allocate(String product_id, int quantity, List<LocationStock> stock, AllocationContext context) {
+        if (!context.hasOrigin())
+            throw new CustomException("The nearest strategy needs lat and lon", HttpStatus.BAD_REQUEST);
+        return stock.stream()
+                .filter(location -> location.getQuantity() != null && location.getQuantity() >= quantity)
+                .min(Comparator.comparingDouble(location -> context.distanceTo(location.getLocation_id())))
+                .map(location -> List.of(new LocationAllocation(product_id, location.getLocation_id(), quantity)))
+                .orElse(List.of());
+    }
+
+    @Override
+    public boolean needsLocations() {
+        return true;
+    }
+}
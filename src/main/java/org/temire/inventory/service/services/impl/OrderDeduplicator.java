@@ -0,0 +1,93 @@
+package org.temire.inventory.service.services.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.data.model.OrderReceipt;
+import org.temire.inventory.service.data.repositories.OrderReceiptRepository;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Makes order placement idempotent by key for a configurable window. A request first claims its key
+ * with a pending receipt in order_receipts; the unique _id lets one request through and the others
+ * are answered with the stored response, or a conflict while the first is still being placed. Every
+ * keyed order pays that one upsert round trip before it is placed; only a lost claim reads the receipt.
+ */
+@Component
+public class OrderDeduplicator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderDeduplicator.class);
+
+    private final OrderReceiptRepository orderReceiptRepository;
+    private final boolean enabled;
+    private final Duration window;
+    private final Duration claimTimeout;
+    private final Counter replayed;
+
+    public OrderDeduplicator(OrderReceiptRepository orderReceiptRepository, MeterRegistry meterRegistry,
+                             @Value("${inventory.orders.idempotency.enabled:true}") boolean enabled,
+                             @Value("${inventory.orders.idempotency.window:24h}") Duration window,
+                             @Value("${inventory.orders.idempotency.claim-timeout:30s}") Duration claimTimeout) {
+        this.orderReceiptRepository = orderReceiptRepository;
+        this.enabled = enabled;
+        this.window = window;
+        this.claimTimeout = claimTimeout;
+        this.replayed = meterRegistry.counter("inventory.orders.idempotency", "result", "replayed");
+    }
+
+    // Empty means the caller now holds the key and must hand the outcome to remember(). A claim
+    // that is never completed lapses after claim-timeout, so the key can be tried again.
+    public Optional<GenericResponseDTO> claim(String key) {
+        if (!enabled || key == null) return Optional.empty();
+        try {
+            Instant now = Instant.now();
+            if (orderReceiptRepository.claim(key, now, now.plus(claimTimeout))) return Optional.empty();
+            return Optional.of(previous(key).orElseGet(OrderDeduplicator::inProgress));
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Could not claim idempotency key {}: {}", key, ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Optional<GenericResponseDTO> previous(String key) {
+        Optional<OrderReceipt> receipt = orderReceiptRepository.findById(key);
+        if (receipt.isEmpty()) return Optional.empty();
+        OrderReceipt found = receipt.get();
+        if (found.getCode() == null) {
+            boolean lapsed = found.getExpires_at() != null && !found.getExpires_at().isAfter(Instant.now());
+            return lapsed ? Optional.empty() : Optional.of(inProgress());
+        }
+        replayed.increment();
+        return Optional.of(new GenericResponseDTO(found.getCode(), HttpStatus.valueOf(found.getStatus()),
+                found.getMessage(), found.getOrder()));
+    }
+
+    private static GenericResponseDTO inProgress() {
+        return new GenericResponseDTO("99", HttpStatus.CONFLICT, "An order with this key is already being placed", null);
+    }
+
+    // Only accepted orders are remembered; a failed attempt gives the key back so it may be retried.
+    public void remember(String key, GenericResponseDTO response) {
+        if (!enabled || key == null) return;
+        try {
+            if (!"00".equals(response.getCode())) {
+                orderReceiptRepository.release(key);
+                return;
+            }
+            Instant now = Instant.now();
+            orderReceiptRepository.complete(new OrderReceipt(key, response.getCode(), response.getStatus().value(),
+                    response.getMessage(), (Order) response.getData(), now, now.plus(window)));
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Could not store idempotency key {}: {}", key, ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.temire.inventory.service.services.impl;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.temire.inventory.service.CustomException;
+import org.temire.inventory.service.cache.ProductCache;
+import org.temire.inventory.service.data.dto.OrderProduct;
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.data.model.Product;
+import org.temire.inventory.service.data.repositories.ProductRepository;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Checks the prices a client sent with an order against the catalogue. Prices come from the product
+ * cache, and whatever is not cached is fetched in a single findAllById, so an order of any size costs
+ * at most one query.
+ */
+@Component
+public class OrderPricer {
+
+    // Half a cent, so prices that differ only by floating point noise still match.
+    private static final double TOLERANCE = 0.005;
+
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+
+    public OrderPricer(ProductRepository productRepository, ProductCache productCache) {
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+    }
+
+    // Empty when every line and the total match; otherwise the rejection to send back, carrying the
+    // repriced order when only the prices are off.
+    public Optional<GenericResponseDTO> validate(Order order) {
+        // The same line checks the fulfilment consumer applies, so an order it would refuse is never accepted here.
+        Set<String> ids;
+        try {
+            ids = ProductServiceImpl.quantitiesOf(order.getItems()).keySet();
+        } catch (CustomException ex) {
+            return Optional.of(new GenericResponseDTO("99", ex.getHttpStatus(), ex.getMessage(), null));
+        }
+        Map<String, Product> products = productCache.getAll(ids, productRepository::findAllById);
+
+        boolean mismatch = false;
+        List<OrderProduct> repriced = new ArrayList<>();
+        for (OrderProduct item : order.getItems()) {
+            Product product = products.get(item.getProduct_id());
+            if (product == null)
+                return Optional.of(new GenericResponseDTO("99", HttpStatus.BAD_REQUEST, "No such product: " + item.getProduct_id(), null));
+            if (differs(item.getOrderPrice(), product.getPrice())) mismatch = true;
+            repriced.add(new OrderProduct(item.getProduct_id(), item.getName(), item.getDescription(), product.getPrice(), item.getQuantity()));
+        }
+        Order quote = new Order(order.getOrder_id(), repriced, 0.0, order.getOrder_date(), order.getFulfillment_date(),
+                order.getDelivery_address(), order.getCustomer_name(), order.getCustomer_email(), order.getCustomer_phone(),
+                order.isFulfilled());
+        quote.setTotal_order_value(quote.computeTotal());
+        if (mismatch || differs(order.getTotal_order_value(), quote.getTotal_order_value()))
+            return Optional.of(new GenericResponseDTO("99", HttpStatus.CONFLICT,
+                    "The order prices do not match the catalogue", quote));
+        return Optional.empty();
+    }
+
+    private static boolean differs(double sent, double expected) {
+        return Math.abs(sent - expected) >= TOLERANCE;
+    }
+}
@@ -0,0 +1,42 @@
+package org.temire.inventory.service.services.impl;
+
+import org.springframework.http.HttpStatus;
+import org.temire.inventory.service.CustomException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position in a keyset scan: the sort key of the last product returned. Clients pass it
+ * back unchanged to continue after that product.
+ */
+final class ProductCursor {
+
+    private static final char SEPARATOR = '|';
+
+    final Integer quantity;
+    final String product_id;
+
+    ProductCursor(Integer quantity, String product_id) {
+        this.quantity = quantity;
+        this.product_id = product_id;
+    }
+
+    static ProductCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) return new ProductCursor(null, null);
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int split = raw.indexOf(SEPARATOR);
+            if (split < 0) throw new IllegalArgumentException(raw);
+            String quantity = raw.substring(0, split);
+            return new ProductCursor(quantity.isEmpty() ? null : Integer.valueOf(quantity), raw.substring(split + 1));
+        } catch (IllegalArgumentException ex) {
+            throw new CustomException("Invalid cursor", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    String encode() {
+        String raw = (quantity == null ? "" : quantity.toString()) + SEPARATOR + product_id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,50 +1,105 @@
 package org.temire.inventory.service.services.impl;
 
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.temire.inventory.service.CustomException;
+import org.temire.inventory.service.cache.ProductAvailabilityIndex;
+import org.temire.inventory.service.cache.ProductCache;
+import org.temire.inventory.service.data.ProductFields;
 import org.temire.inventory.service.data.dto.CheckedProduct;
+import org.temire.inventory.service.data.dto.IngestChunkResult;
 import org.temire.inventory.service.data.dto.OrderProduct;
+import org.temire.inventory.service.data.dto.OrderResult;
+import org.temire.inventory.service.data.dto.ProductStock;
 import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.data.model.OutboxOrder;
 import org.temire.inventory.service.data.model.Product;
+import org.temire.inventory.service.data.repositories.OutboxOrderRepository;
 import org.temire.inventory.service.data.repositories.ProductRepository;
 import org.temire.inventory.service.kafka.producer.KafkaProducer;
+import org.temire.inventory.service.kafka.producer.LowStockProducer;
 import org.temire.inventory.service.rest.response.GenericResponseDTO;
 import org.temire.inventory.service.services.ProductService;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductServiceImpl implements ProductService {
 
-    private Lock lockForUpdate = new ReentrantLock();
+    private static final int PRICE_UPDATE_ATTEMPTS = 3;
+
     private final ProductRepository productRepository;
     private final KafkaProducer kafkaProducer;
+    private final ProductCache productCache;
+    private final ProductAvailabilityIndex productAvailabilityIndex;
+    private final OrderPricer orderPricer;
+    private final OrderDeduplicator orderDeduplicator;
+    private final LowStockProducer lowStockProducer;
+    private final HotStockLedger hotStockLedger;
+    private final OutboxOrderRepository outboxOrderRepository;
+    private final boolean outboxEnabled;
+    private final int ingestChunkSize;
 
-    public ProductServiceImpl(ProductRepository productRepository, KafkaProducer kafkaProducer) {
+    public ProductServiceImpl(ProductRepository productRepository, KafkaProducer kafkaProducer, ProductCache productCache,
+                              ProductAvailabilityIndex productAvailabilityIndex,
+                              OrderPricer orderPricer, OrderDeduplicator orderDeduplicator,
+                              LowStockProducer lowStockProducer, HotStockLedger hotStockLedger,
+                              OutboxOrderRepository outboxOrderRepository,
+                              @Value("${inventory.orders.outbox.enabled:true}") boolean outboxEnabled,
+                              @Value("${inventory.ingest.chunk-size:1000}") int ingestChunkSize) {
         this.productRepository = productRepository;
         this.kafkaProducer = kafkaProducer;
+        this.productCache = productCache;
+        this.productAvailabilityIndex = productAvailabilityIndex;
+        this.orderPricer = orderPricer;
+        this.orderDeduplicator = orderDeduplicator;
+        this.lowStockProducer = lowStockProducer;
+        this.hotStockLedger = hotStockLedger;
+        this.outboxOrderRepository = outboxOrderRepository;
+        this.outboxEnabled = outboxEnabled;
+        this.ingestChunkSize = ingestChunkSize;
     }
 
     @Override
     public void updateProductQuantity(String product_id, Integer update_qty) {
-        lockForUpdate.lock();
-        Optional<Product> optionalProduct = findById(product_id);
-        if (optionalProduct.isPresent()) {
-            Product p = optionalProduct.get();
-            int current_qty = p.getQuantity();
-            if (current_qty > update_qty) {
-                int new_qty = current_qty - update_qty;
-                p.setQuantity(new_qty);
-                productRepository.save(p);
-            } else throw new CustomException("The purchase quantity is higher than available products");
+        if (update_qty < 0)
+            throw new CustomException("The purchase quantity cannot be negative", HttpStatus.BAD_REQUEST);
+        // Low-stock events for hot products are raised when the ledger flushes their sales.
+        if (hotStockLedger.isHot(product_id)) {
+            if (!hotStockLedger.take(product_id, update_qty) && productRepository.existsById(product_id))
+                throw new CustomException("The purchase quantity is higher than available products");
+            return;
         }
-        lockForUpdate.unlock();
+        Optional<Product> updated = productRepository.decrementQuantity(product_id, update_qty);
+        if (updated.isPresent()) {
+            productCache.put(updated.get());
+            lowStockProducer.onDecrement(updated.get(), update_qty);
+        } else productCache.invalidate(product_id);
+        // Only a rejected decrement pays for the extra lookup, to keep unknown products a no-op.
+        if (updated.isEmpty() && productRepository.existsById(product_id))
+            throw new CustomException("The purchase quantity is higher than available products");
     }
 
     @Override
@@ -53,36 +108,243 @@ public class ProductServiceImpl implements ProductService {
         return genericResponseDTO;
     }
 
+    @Override
+    public GenericResponseDTO findAllSlice(Pageable pageable) {
+        Slice<Product> slice = productRepository.findAllBy(pageable);
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("page", slice.getNumber());
+        metadata.put("size", slice.getSize());
+        metadata.put("has_next", slice.hasNext());
+        return new GenericResponseDTO("00", HttpStatus.OK, "Search Completed", slice.getContent(), metadata);
+    }
+
+    @Override
+    public GenericResponseDTO findAllByCursor(String cursor, int size) {
+        try {
+            ProductCursor after = ProductCursor.decode(cursor);
+            List<Product> page = productRepository.findPageAfter(after.product_id, size + 1);
+            return cursorPage(page, size, false, "Search Completed");
+        } catch (CustomException ex) {
+            return new GenericResponseDTO("99", ex.getHttpStatus(), ex.getMessage());
+        }
+    }
+
+    @Override
+    public GenericResponseDTO findAllAvailableByCursor(String cursor, int size, int qty) {
+        try {
+            ProductCursor after = ProductCursor.decode(cursor);
+            List<Product> page = productAvailabilityIndex.isReady()
+                    ? productAvailabilityIndex.findAvailablePageAfter(qty, after.quantity, after.product_id, size + 1)
+                    : productRepository.findAvailablePageAfter(qty, after.quantity, after.product_id, size + 1);
+            if (page.isEmpty()) return new GenericResponseDTO("11", HttpStatus.NO_CONTENT, "NO PRODUCTS AVAILABLE!", page);
+            return cursorPage(page, size, true, "Producs return successfully!");
+        } catch (CustomException ex) {
+            return new GenericResponseDTO("99", ex.getHttpStatus(), ex.getMessage());
+        }
+    }
+
+    // Without fields= the full products are returned, as before.
+    @Override
+    public GenericResponseDTO findAll(Pageable pageable, String fields) {
+        if (fields == null) return findAll(pageable);
+        try {
+            return new GenericResponseDTO("00", HttpStatus.OK, "Search Completed",
+                    productRepository.findPage(pageable, ProductFields.parse(fields)));
+        } catch (CustomException ex) {
+            return new GenericResponseDTO("99", ex.getHttpStatus(), ex.getMessage());
+        }
+    }
+
+    @Override
+    public GenericResponseDTO findAllSlice(Pageable pageable, String fields) {
+        if (fields == null) return findAllSlice(pageable);
+        try {
+            List<Document> rows = productRepository.findSliceRows(pageable, ProductFields.parse(fields));
+            boolean hasNext = pageable.isPaged() && rows.size() > pageable.getPageSize();
+            Map<String, Object> metadata = new LinkedHashMap<>();
+            metadata.put("page", pageable.isPaged() ? pageable.getPageNumber() : 0);
+            metadata.put("size", pageable.isPaged() ? pageable.getPageSize() : rows.size());
+            metadata.put("has_next", hasNext);
+            List<Document> content = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+            return new GenericResponseDTO("00", HttpStatus.OK, "Search Completed", content, metadata);
+        } catch (CustomException ex) {
+            return new GenericResponseDTO("99", ex.getHttpStatus(), ex.getMessage());
+        }
+    }
+
+    @Override
+    public GenericResponseDTO findAllByCursor(String cursor, int size, String fields) {
+        if (fields == null) return findAllByCursor(cursor, size);
+        try {
+            ProductCursor after = ProductCursor.decode(cursor);
+            List<Document> page = productRepository.findPageAfter(after.product_id, size + 1, ProductFields.parse(fields));
+            return cursorPage(page, size, row -> new ProductCursor(null, row.getString("product_id")), "Search Completed");
+        } catch (CustomException ex) {
+            return new GenericResponseDTO("99", ex.getHttpStatus(), ex.getMessage());
+        }
+    }
+
+    @Override
+    public GenericResponseDTO findAllAvailable(Pageable pageable, int qty, String fields) {
+        if (fields == null) return findAllAvailable(pageable, qty);
+        try {
+            ProductFields projection = ProductFields.parse(fields);
+            List<Document> available = productAvailabilityIndex.isReady() && pageable.isPaged() && pageable.getSort().isUnsorted()
+                    ? project(productAvailabilityIndex.findAvailable(qty, pageable.getOffset(), pageable.getPageSize()), projection)
+                    : productRepository.findAvailable(pageable, qty, projection);
+            if (!available.isEmpty()) return new GenericResponseDTO("00", HttpStatus.OK, "Producs return successfully!", available);
+            else return new GenericResponseDTO("11", HttpStatus.NO_CONTENT, "NO PRODUCTS AVAILABLE!", available);
+        } catch (CustomException ex) {
+            return new GenericResponseDTO("99", ex.getHttpStatus(), ex.getMessage());
+        }
+    }
+
+    // quantity is part of the cursor, so it comes back whether or not it was asked for.
+    @Override
+    public GenericResponseDTO findAllAvailableByCursor(String cursor, int size, int qty, String fields) {
+        if (fields == null) return findAllAvailableByCursor(cursor, size, qty);
+        try {
+            ProductCursor after = ProductCursor.decode(cursor);
+            ProductFields projection = ProductFields.parse(fields).with("quantity");
+            List<Document> page = productAvailabilityIndex.isReady()
+                    ? project(productAvailabilityIndex.findAvailablePageAfter(qty, after.quantity, after.product_id, size + 1), projection)
+                    : productRepository.findAvailablePageAfter(qty, after.quantity, after.product_id, size + 1, projection);
+            if (page.isEmpty()) return new GenericResponseDTO("11", HttpStatus.NO_CONTENT, "NO PRODUCTS AVAILABLE!", page);
+            return cursorPage(page, size, row -> new ProductCursor(row.getInteger("quantity"), row.getString("product_id")),
+                    "Producs return successfully!");
+        } catch (CustomException ex) {
+            return new GenericResponseDTO("99", ex.getHttpStatus(), ex.getMessage());
+        }
+    }
+
+    // Read from MongoDB rather than the product cache, since pollers want the current figure.
+    @Override
+    public GenericResponseDTO findStock(List<String> product_ids) {
+        List<ProductStock> stock = productRepository.findStockByIds(product_ids);
+        if (stock.isEmpty()) return new GenericResponseDTO("11", HttpStatus.NO_CONTENT, "NO PRODUCTS FOUND!", stock);
+        return new GenericResponseDTO("00", HttpStatus.OK, "Search Completed", stock);
+    }
+
+    @Override
+    public GenericResponseDTO findStockByCursor(String cursor, int size) {
+        try {
+            ProductCursor after = ProductCursor.decode(cursor);
+            List<ProductStock> page = productRepository.findStockPageAfter(after.product_id, size + 1);
+            return cursorPage(page, size, row -> new ProductCursor(null, row.getProduct_id()), "Search Completed");
+        } catch (CustomException ex) {
+            return new GenericResponseDTO("99", ex.getHttpStatus(), ex.getMessage());
+        }
+    }
+
+    private static List<Document> project(List<Product> products, ProductFields fields) {
+        return products.stream().map(fields::project).collect(Collectors.toList());
+    }
+
+    static GenericResponseDTO cursorPage(List<Product> page, int size, boolean byQuantity, String message) {
+        return cursorPage(page, size, last -> new ProductCursor(byQuantity ? last.getQuantity() : null, last.getProduct_id()), message);
+    }
+
+    // One extra row is fetched to learn whether another page exists without counting.
+    static <T> GenericResponseDTO cursorPage(List<T> page, int size, Function<T, ProductCursor> positionOf, String message) {
+        boolean hasNext = page.size() > size;
+        List<T> content = hasNext ? page.subList(0, size) : page;
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("size", content.size());
+        metadata.put("has_next", hasNext);
+        if (hasNext) metadata.put("next_cursor", positionOf.apply(content.get(content.size() - 1)).encode());
+        return new GenericResponseDTO("00", HttpStatus.OK, message, content, metadata);
+    }
+
+    // Only one chunk is held at a time; the iterator is expected to parse the body lazily.
+    @Override
+    public GenericResponseDTO ingest(Iterator<Product> products) {
+        List<IngestChunkResult> chunks = new ArrayList<>();
+        List<Product> chunk = new ArrayList<>(ingestChunkSize);
+        while (true) {
+            Product product;
+            try {
+                if (!products.hasNext()) break;
+                product = products.next();
+            } catch (RuntimeException ex) {
+                if (!chunk.isEmpty()) chunks.add(writeChunk(chunks.size(), chunk));
+                return new GenericResponseDTO("99", HttpStatus.BAD_REQUEST, "Ingest stopped at a malformed product: " + ex.getMessage(), chunks);
+            }
+            if (product.getProduct_id() == null) product.setProduct_id(new ObjectId().toHexString());
+            chunk.add(product);
+            if (chunk.size() == ingestChunkSize) chunks.add(writeChunk(chunks.size(), chunk));
+        }
+        if (!chunk.isEmpty()) chunks.add(writeChunk(chunks.size(), chunk));
+        if (chunks.isEmpty()) return new GenericResponseDTO("11", HttpStatus.NO_CONTENT, "NO PRODUCTS TO INGEST!", chunks);
+        return new GenericResponseDTO("00", HttpStatus.OK, "Products ingested successfully!", chunks);
+    }
+
+    private IngestChunkResult writeChunk(int index, List<Product> chunk) {
+        IngestChunkResult result = productRepository.upsertAll(index, chunk);
+        for (Product product : chunk) productCache.invalidate(product.getProduct_id());
+        chunk.clear();
+        return result;
+    }
+
     public Optional<Product> findById(String id) {
-        return productRepository.findById(id);
+        return productCache.get(id, productRepository::findById);
+    }
+
+    // The cached copy is what findById would return, so its version is the one to compare against.
+    @Override
+    public Optional<Long> findVersion(String id) {
+        Optional<Product> cached = productCache.getIfPresent(id);
+        if (cached.isPresent() && cached.get().getVersion() != null) return Optional.of(cached.get().getVersion());
+        return productRepository.findVersion(id);
+    }
+
+    // Backed by an open server cursor; callers must close the stream.
+    @Override
+    public Stream<Product> streamCatalog(Integer minQuantity) {
+        return minQuantity == null ? productRepository.streamAllBy() : productRepository.streamWithCondition(minQuantity);
     }
 
+    // A stock movement between the read and the save bumps the version; the price is then applied
+    // again on the fresh copy instead of writing the stale quantity back.
     @Override
     public GenericResponseDTO updatePrice(String product_id, double price) {
-        Optional<Product> product = findById(product_id);
-        if (product.isPresent()) {
+        for (int attempt = 1; ; attempt++) {
+            Optional<Product> product = productRepository.findById(product_id);
+            if (product.isEmpty())
+                return new GenericResponseDTO("99", HttpStatus.EXPECTATION_FAILED, "No Product found with the ID");
             Product toBeUpdated = product.get();
             toBeUpdated.setPrice(price);
-            Product updated = productRepository.save(toBeUpdated);
-            GenericResponseDTO genericResponseDTO = new GenericResponseDTO("00", HttpStatus.OK, "Product price updated Successfully!", updated);
-            return genericResponseDTO;
-        } else
-            return new GenericResponseDTO("99", HttpStatus.EXPECTATION_FAILED, "No Product found with the ID");
+            try {
+                Product updated = saveAndCache(toBeUpdated);
+                return new GenericResponseDTO("00", HttpStatus.OK, "Product price updated Successfully!", updated);
+            } catch (OptimisticLockingFailureException ex) {
+                if (attempt == PRICE_UPDATE_ATTEMPTS) throw ex;
+            }
+        }
     }
 
     @Override
     public GenericResponseDTO findAllAvailable(Pageable pageable, int qty) {
-        List<Product> available =  productRepository.findWithCondition(pageable, qty);
+        // The index has its own (quantity, product_id) order, so a requested sort still goes to MongoDB.
+        List<Product> available = productAvailabilityIndex.isReady() && pageable.isPaged() && pageable.getSort().isUnsorted()
+                ? productAvailabilityIndex.findAvailable(qty, pageable.getOffset(), pageable.getPageSize())
+                : productRepository.findWithCondition(pageable, qty);
         if(!available.isEmpty()) return new GenericResponseDTO("00", HttpStatus.OK, "Producs return successfully!", available);
         else return new GenericResponseDTO("11", HttpStatus.NO_CONTENT, "NO PRODUCTS AVAILABLE!", available);
     }
 
 
+    // A product sent without a version overwrites whatever is stored; with one, it only applies
+    // if nothing was written since that version was read.
     public GenericResponseDTO update(Product p){
         try{
-            Product updated = productRepository.save(p);
+            if (p.getProduct_id() != null)
+                productRepository.findById(p.getProduct_id()).ifPresent(stored -> keepStored(p, stored));
+            Product updated = saveAndCache(p);
+            lowStockProducer.onReplace(updated);
             GenericResponseDTO genericResponseDTO = new GenericResponseDTO("00", HttpStatus.OK, "Product updated Successfully!", updated);
             return genericResponseDTO;
+        }catch(OptimisticLockingFailureException ex){
+            return new GenericResponseDTO("99", HttpStatus.CONFLICT, "The product was changed since this version was read", null);
         }catch(Exception ex){
             return new GenericResponseDTO("99", HttpStatus.EXPECTATION_FAILED , "Error updating product!", ex.getMessage());        }
     }
@@ -91,11 +353,234 @@ public class ProductServiceImpl implements ProductService {
 
     @Override
     public GenericResponseDTO makeOrder(Order order) {
+        return makeOrderAsync(order).join();
+    }
+
+    @Override
+    public CompletableFuture<GenericResponseDTO> makeOrderAsync(Order order) {
+        return makeOrderAsync(order, null);
+    }
+
+    // Without an explicit key the client's order_id identifies a retry.
+    @Override
+    public CompletableFuture<GenericResponseDTO> makeOrderAsync(Order order, String idempotencyKey) {
+        String key = idempotencyKey != null ? idempotencyKey : order.getOrder_id();
+        Optional<GenericResponseDTO> previous = orderDeduplicator.claim(key);
+        if (previous.isPresent()) return CompletableFuture.completedFuture(previous.get());
+        return placeOrder(order).whenComplete((response, ex) -> orderDeduplicator.remember(key,
+                ex == null ? response : sendFailure(ex)));
+    }
+
+    private CompletableFuture<GenericResponseDTO> placeOrder(Order order) {
+        Optional<GenericResponseDTO> rejected;
         try{
-            kafkaProducer.sendMessage(order);
-            return new GenericResponseDTO("00", HttpStatus.OK, "Order sent successfully!", order);
+            rejected = orderPricer.validate(order);
+        }catch(Exception ex){
+            rejected = Optional.of(new GenericResponseDTO("99", HttpStatus.EXPECTATION_FAILED, ex.getMessage(), null));
+        }
+        if (rejected.isPresent()) return CompletableFuture.completedFuture(rejected.get());
+        // The fulfilment consumer recognises a redelivered order by its id.
+        if (order.getOrder_id() == null) order.setOrder_id(new ObjectId().toHexString());
+        if (outboxEnabled) return CompletableFuture.completedFuture(storeInOutbox(order));
+        CompletableFuture<?> sent;
+        try{
+            sent = kafkaProducer.sendMessage(order);
+        }catch(Exception ex){
+            sent = CompletableFuture.failedFuture(ex);
+        }
+        return sent.handle((result, ex) -> ex == null
+                ? new GenericResponseDTO("00", HttpStatus.OK, "Order sent successfully!", order)
+                : sendFailure(ex));
+    }
+
+    static GenericResponseDTO sendFailure(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        HttpStatus status = cause instanceof CustomException && ((CustomException) cause).getHttpStatus() != null
+                ? ((CustomException) cause).getHttpStatus() : HttpStatus.EXPECTATION_FAILED;
+        return new GenericResponseDTO("99", status, cause.getMessage(), null);
+    }
+
+    // The order is durable once it is in the outbox; OrderOutboxRelay forwards it to Kafka.
+    private GenericResponseDTO storeInOutbox(Order order) {
+        try{
+            outboxOrderRepository.insert(new OutboxOrder(order));
+            return new GenericResponseDTO("00", HttpStatus.OK, "Order accepted successfully!", order);
+        }catch(DuplicateKeyException ex){
+            return new GenericResponseDTO("99", HttpStatus.CONFLICT, "An order with this ID has already been placed", null);
         }catch(Exception ex){
             return new GenericResponseDTO("99", HttpStatus.EXPECTATION_FAILED, ex.getMessage(), null);
         }
     }
+
+    @Override
+    public GenericResponseDTO reserveOrder(Order order) {
+        try {
+            List<CheckedProduct> checked = reserveItems(order.getItems());
+            return new GenericResponseDTO("00", HttpStatus.OK, "Order items reserved successfully!", checked);
+        } catch (CustomException ex) {
+            HttpStatus status = ex.getHttpStatus() != null ? ex.getHttpStatus() : HttpStatus.EXPECTATION_FAILED;
+            return new GenericResponseDTO("99", status, ex.getMessage(), ex.getProductExceedingPurchassbleQTY());
+        }
+    }
+
+    @Override
+    public List<OrderResult> fulfilOrders(List<Order> orders) {
+        OrderResult[] results = new OrderResult[orders.size()];
+        List<Map<String, Integer>> orderQuantities = new ArrayList<>(orders.size());
+        Set<String> product_ids = new HashSet<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            try {
+                Map<String, Integer> quantities = quantitiesOf(order.getItems());
+                product_ids.addAll(quantities.keySet());
+                orderQuantities.add(quantities);
+            } catch (CustomException ex) {
+                orderQuantities.add(null);
+                results[i] = new OrderResult(order.getOrder_id(), false, ex.getMessage(), null);
+            }
+        }
+
+        // Orders are accepted in offset order against one stock snapshot, and the deltas of every
+        // accepted order are coalesced per product so the whole batch is a single bulk write.
+        Map<String, Integer> thresholds = new HashMap<>();
+        Map<String, Integer> remaining = stockOf(product_ids, thresholds);
+        Map<String, Integer> batchQuantities = new LinkedHashMap<>();
+        List<Integer> accepted = new ArrayList<>();
+        for (int i = 0; i < orders.size(); i++) {
+            Map<String, Integer> quantities = orderQuantities.get(i);
+            if (quantities == null) continue;
+            Order order = orders.get(i);
+            List<CheckedProduct> checked = check(order.getItems(), quantities, remaining);
+            if (allAvailable(checked)) {
+                quantities.forEach((id, qty) -> {
+                    remaining.merge(id, -qty, Integer::sum);
+                    batchQuantities.merge(id, qty, Integer::sum);
+                });
+                results[i] = new OrderResult(order.getOrder_id(), true, "Order items reserved successfully!", checked);
+                accepted.add(i);
+            } else {
+                results[i] = new OrderResult(order.getOrder_id(), false, "The purchase quantity is higher than available products", checked);
+            }
+        }
+
+        if (!batchQuantities.isEmpty()) {
+            Optional<String> shortItem = reserveAll(batchQuantities);
+            if (shortItem.isPresent()) {
+                // Stock moved under the snapshot; settle the accepted orders one by one instead.
+                // Earlier orders are already taken by now, so a failed write only rejects its own
+                // order (whose lines were given back) rather than failing the batch.
+                for (int i : accepted) {
+                    try {
+                        Optional<String> orderShortItem = reserveAll(orderQuantities.get(i));
+                        if (orderShortItem.isPresent()) {
+                            markShort(results[i].getItems(), orderShortItem.get());
+                            results[i].setAccepted(false);
+                            results[i].setMessage("The purchase quantity is higher than available products");
+                        }
+                    } catch (RuntimeException ex) {
+                        results[i].setAccepted(false);
+                        results[i].setMessage("The order items could not be reserved: " + ex.getMessage());
+                    }
+                    if (!results[i].isAccepted()) {
+                        orderQuantities.get(i).forEach((id, qty) -> {
+                            remaining.merge(id, qty, Integer::sum);
+                            batchQuantities.merge(id, -qty, Integer::sum);
+                        });
+                    }
+                }
+            }
+            productCache.invalidateAll(batchQuantities.keySet());
+            // Measured against the batch snapshot, which is as close as the bulk write lets us get.
+            batchQuantities.forEach((id, qty) -> lowStockProducer.onDecrement(id, thresholds.get(id), remaining.get(id), qty));
+        }
+        return Arrays.asList(results);
+    }
+
+    // Hot lines are sold from the ledger's allotment, the rest with the guarded MongoDB write.
+    private Optional<String> reserveAll(Map<String, Integer> quantities) {
+        if (!hotStockLedger.anyHot(quantities.keySet())) return productRepository.reserveAll(quantities);
+        return hotStockLedger.takeAll(quantities,
+                (hot, cold) -> cold.isEmpty() ? Optional.empty() : productRepository.reserveAll(cold));
+    }
+
+    private List<CheckedProduct> reserveItems(List<OrderProduct> items) {
+        Map<String, Integer> quantities = quantitiesOf(items);
+        Map<String, Integer> thresholds = new HashMap<>();
+        Map<String, Integer> stock = stockOf(quantities.keySet(), thresholds);
+        List<CheckedProduct> checked = check(items, quantities, stock);
+        if (!allAvailable(checked))
+            throw new CustomException("The purchase quantity is higher than available products", checked);
+
+        // Stock can still move between the read above and the bulk write; the write is guarded
+        // per line, so a line that lost the race is reported here and nothing is kept.
+        Optional<String> shortItem = reserveAll(quantities);
+        productCache.invalidateAll(quantities.keySet());
+        if (shortItem.isPresent()) {
+            markShort(checked, shortItem.get());
+            throw new CustomException("The purchase quantity is higher than available products", checked);
+        }
+        quantities.forEach((id, qty) -> lowStockProducer.onDecrement(id, thresholds.get(id), stock.get(id) - qty, qty));
+        return checked;
+    }
+
+    static Map<String, Integer> quantitiesOf(List<OrderProduct> items) {
+        if (items == null || items.isEmpty())
+            throw new CustomException("The order has no items", HttpStatus.BAD_REQUEST);
+
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (OrderProduct item : items) {
+            if (item.getQuantity() == null || item.getQuantity() <= 0)
+                throw new CustomException("Every order item needs a positive quantity", HttpStatus.BAD_REQUEST);
+            quantities.merge(item.getProduct_id(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private Map<String, Integer> stockOf(Collection<String> product_ids, Map<String, Integer> thresholds) {
+        Map<String, Integer> stock = new HashMap<>();
+        productRepository.findAllById(product_ids).forEach(p -> {
+            stock.put(p.getProduct_id(), p.getQuantity() == null ? 0 : p.getQuantity());
+            if (p.getReorder_threshold() != null) thresholds.put(p.getProduct_id(), p.getReorder_threshold());
+        });
+        return stock;
+    }
+
+    static List<CheckedProduct> check(List<OrderProduct> items, Map<String, Integer> quantities, Map<String, Integer> stock) {
+        List<CheckedProduct> checked = new ArrayList<>(items.size());
+        for (OrderProduct item : items) {
+            Integer current_qty = stock.get(item.getProduct_id());
+            boolean available = current_qty != null && current_qty >= quantities.get(item.getProduct_id());
+            checked.add(new CheckedProduct(item.getProduct_id(), item.getQuantity(), current_qty == null ? 0 : current_qty, available));
+        }
+        return checked;
+    }
+
+    // Reserved units and the hot-stock escrow are not the client's to set, so a replacement
+    // carries the stored counts.
+    static Product keepStored(Product p, Product stored) {
+        if (p.getVersion() == null) p.setVersion(stored.getVersion());
+        p.setReserved(stored.getReserved());
+        p.setHot_held(stored.getHot_held());
+        return p;
+    }
+
+    static boolean allAvailable(List<CheckedProduct> checked) {
+        for (CheckedProduct line : checked) {
+            if (!line.isAvailable()) return false;
+        }
+        return true;
+    }
+
+    static void markShort(List<CheckedProduct> checked, String product_id) {
+        for (CheckedProduct line : checked) {
+            if (line.getProduct_id().equals(product_id)) line.setAvailable(false);
+        }
+    }
+
+    private Product saveAndCache(Product p) {
+        productCache.invalidate(p.getProduct_id());
+        Product updated = productRepository.save(p);
+        productCache.put(updated);
+        return updated;
+    }
 }
@@ -0,0 +1,218 @@
+package org.temire.inventory.service.services.impl;
+
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.temire.inventory.service.CustomException;
+import org.temire.inventory.service.cache.ProductAvailabilityIndex;
+import org.temire.inventory.service.cache.ProductCache;
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.data.model.OutboxOrder;
+import org.temire.inventory.service.data.model.Product;
+import org.temire.inventory.service.data.repositories.ReactiveOutboxOrderRepository;
+import org.temire.inventory.service.data.repositories.ReactiveProductRepository;
+import org.temire.inventory.service.kafka.producer.KafkaProducer;
+import org.temire.inventory.service.kafka.producer.LowStockProducer;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+import org.temire.inventory.service.services.ReactiveProductService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Non-blocking counterpart of {@link ProductServiceImpl}, only created when the application runs
+ * as a reactive web application (spring.main.web-application-type=reactive).
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProductServiceImpl implements ReactiveProductService {
+
+    // Same as ProductServiceImpl: three attempts in all.
+    private static final int PRICE_UPDATE_RETRIES = 2;
+
+    private final ReactiveProductRepository productRepository;
+    private final ReactiveOutboxOrderRepository outboxOrderRepository;
+    private final KafkaProducer kafkaProducer;
+    private final ProductCache productCache;
+    private final ProductAvailabilityIndex productAvailabilityIndex;
+    private final OrderPricer orderPricer;
+    private final OrderDeduplicator orderDeduplicator;
+    private final LowStockProducer lowStockProducer;
+    private final boolean outboxEnabled;
+
+    public ReactiveProductServiceImpl(ReactiveProductRepository productRepository, ReactiveOutboxOrderRepository outboxOrderRepository,
+                                      KafkaProducer kafkaProducer, ProductCache productCache,
+                                      ProductAvailabilityIndex productAvailabilityIndex, OrderPricer orderPricer,
+                                      OrderDeduplicator orderDeduplicator, LowStockProducer lowStockProducer,
+                                      @Value("${inventory.orders.outbox.enabled:true}") boolean outboxEnabled) {
+        this.productRepository = productRepository;
+        this.outboxOrderRepository = outboxOrderRepository;
+        this.kafkaProducer = kafkaProducer;
+        this.productCache = productCache;
+        this.productAvailabilityIndex = productAvailabilityIndex;
+        this.orderPricer = orderPricer;
+        this.orderDeduplicator = orderDeduplicator;
+        this.lowStockProducer = lowStockProducer;
+        this.outboxEnabled = outboxEnabled;
+    }
+
+    @Override
+    public Mono<GenericResponseDTO> findAll(Pageable pageable) {
+        return productRepository.findSliceRows(pageable)
+                .take(pageable.getPageSize())
+                .collectList()
+                .zipWith(productRepository.count())
+                .map(page -> new GenericResponseDTO("00", HttpStatus.OK, "Search Completed",
+                        new PageImpl<>(page.getT1(), pageable, page.getT2())));
+    }
+
+    @Override
+    public Mono<GenericResponseDTO> findAllSlice(Pageable pageable) {
+        return productRepository.findSliceRows(pageable).collectList().map(rows -> {
+            boolean hasNext = rows.size() > pageable.getPageSize();
+            Map<String, Object> metadata = new LinkedHashMap<>();
+            metadata.put("page", pageable.getPageNumber());
+            metadata.put("size", pageable.getPageSize());
+            metadata.put("has_next", hasNext);
+            List<Product> content = hasNext ? rows.subList(0, pageable.getPageSize()) : rows;
+            return new GenericResponseDTO("00", HttpStatus.OK, "Search Completed", content, metadata);
+        });
+    }
+
+    @Override
+    public Mono<GenericResponseDTO> findAllByCursor(String cursor, int size) {
+        return Mono.fromCallable(() -> ProductCursor.decode(cursor))
+                .flatMap(after -> (after.product_id == null
+                        ? productRepository.findSliceRows(PageRequest.of(0, size, Sort.by("_id")))
+                        : productRepository.findPageAfter(after.product_id, size + 1))
+                        .collectList())
+                .map(page -> ProductServiceImpl.cursorPage(page, size, false, "Search Completed"))
+                .onErrorResume(CustomException.class, ex -> Mono.just(new GenericResponseDTO("99", ex.getHttpStatus(), ex.getMessage())));
+    }
+
+    @Override
+    public Mono<GenericResponseDTO> findAllAvailableByCursor(String cursor, int size, int qty) {
+        return Mono.fromCallable(() -> ProductCursor.decode(cursor))
+                .flatMap(after -> availablePageAfter(after, size + 1, qty).collectList())
+                .map(page -> page.isEmpty()
+                        ? new GenericResponseDTO("11", HttpStatus.NO_CONTENT, "NO PRODUCTS AVAILABLE!", page)
+                        : ProductServiceImpl.cursorPage(page, size, true, "Producs return successfully!"))
+                .onErrorResume(CustomException.class, ex -> Mono.just(new GenericResponseDTO("99", ex.getHttpStatus(), ex.getMessage())));
+    }
+
+    private Flux<Product> availablePageAfter(ProductCursor after, int limit, int qty) {
+        if (productAvailabilityIndex.isReady())
+            return Flux.fromIterable(productAvailabilityIndex.findAvailablePageAfter(qty, after.quantity, after.product_id, limit));
+        return productRepository.findAvailablePageAfter(qty, after.quantity, after.product_id, limit);
+    }
+
+    @Override
+    public Mono<GenericResponseDTO> findAllAvailable(Pageable pageable, int qty) {
+        Flux<Product> rows = productAvailabilityIndex.isReady() && pageable.isPaged() && pageable.getSort().isUnsorted()
+                ? Flux.fromIterable(productAvailabilityIndex.findAvailable(qty, pageable.getOffset(), pageable.getPageSize()))
+                : productRepository.findWithCondition(pageable, qty);
+        return rows.collectList().map(available -> !available.isEmpty()
+                ? new GenericResponseDTO("00", HttpStatus.OK, "Producs return successfully!", available)
+                : new GenericResponseDTO("11", HttpStatus.NO_CONTENT, "NO PRODUCTS AVAILABLE!", available));
+    }
+
+    // The cache is only consulted, never loaded through, so a miss never parks the event loop.
+    @Override
+    public Mono<Product> findById(String id) {
+        Optional<Product> cached = productCache.getIfPresent(id);
+        if (cached.isPresent()) return Mono.just(cached.get());
+        return productRepository.findById(id).doOnNext(productCache::put);
+    }
+
+    @Override
+    public Mono<Long> findVersion(String id) {
+        Optional<Product> cached = productCache.getIfPresent(id);
+        if (cached.isPresent() && cached.get().getVersion() != null) return Mono.just(cached.get().getVersion());
+        return productRepository.findVersion(id);
+    }
+
+    @Override
+    public Flux<Product> streamCatalog(Integer minQuantity) {
+        return minQuantity == null ? productRepository.streamAllBy() : productRepository.streamWithCondition(minQuantity);
+    }
+
+    @Override
+    public Mono<GenericResponseDTO> update(Product p) {
+        Mono<Product> versioned = p.getProduct_id() == null ? Mono.just(p)
+                : productRepository.findById(p.getProduct_id()).map(stored -> ProductServiceImpl.keepStored(p, stored)).defaultIfEmpty(p);
+        return versioned.flatMap(this::saveAndCache)
+                .doOnNext(lowStockProducer::onReplace)
+                .map(updated -> new GenericResponseDTO("00", HttpStatus.OK, "Product updated Successfully!", updated))
+                .onErrorResume(OptimisticLockingFailureException.class, ex -> Mono.just(new GenericResponseDTO("99",
+                        HttpStatus.CONFLICT, "The product was changed since this version was read", null)))
+                .onErrorResume(ex -> Mono.just(new GenericResponseDTO("99", HttpStatus.EXPECTATION_FAILED, "Error updating product!", ex.getMessage())));
+    }
+
+    @Override
+    public Mono<GenericResponseDTO> updatePrice(String product_id, double price) {
+        return productRepository.findById(product_id)
+                .flatMap(product -> {
+                    product.setPrice(price);
+                    return saveAndCache(product);
+                })
+                .retryWhen(Retry.max(PRICE_UPDATE_RETRIES).filter(OptimisticLockingFailureException.class::isInstance))
+                .map(updated -> new GenericResponseDTO("00", HttpStatus.OK, "Product price updated Successfully!", updated))
+                .defaultIfEmpty(new GenericResponseDTO("99", HttpStatus.EXPECTATION_FAILED, "No Product found with the ID"));
+    }
+
+    @Override
+    public Mono<GenericResponseDTO> makeOrder(Order order, String idempotencyKey) {
+        String key = idempotencyKey != null ? idempotencyKey : order.getOrder_id();
+        // The key claim and pricing go through blocking repositories.
+        return Mono.fromCallable(() -> orderDeduplicator.claim(key))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(previous -> previous.map(Mono::just).orElseGet(() -> priceAndPlace(order)
+                        .flatMap(response -> Mono.fromRunnable(() -> orderDeduplicator.remember(key, response))
+                                .subscribeOn(Schedulers.boundedElastic())
+                                .thenReturn(response))));
+    }
+
+    private Mono<GenericResponseDTO> priceAndPlace(Order order) {
+        return Mono.fromCallable(() -> orderPricer.validate(order))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(rejected -> rejected.map(Mono::just).orElseGet(() -> placeOrder(order)))
+                .onErrorResume(ex -> Mono.just(new GenericResponseDTO("99", HttpStatus.EXPECTATION_FAILED, ex.getMessage(), null)));
+    }
+
+    private Mono<GenericResponseDTO> placeOrder(Order order) {
+        if (order.getOrder_id() == null) order.setOrder_id(new ObjectId().toHexString());
+        if (outboxEnabled) return storeInOutbox(order);
+        // Enqueueing may wait for a send permit or for topic metadata, so it is moved off the event loop.
+        return Mono.defer(() -> Mono.fromFuture(kafkaProducer.sendMessage(order)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(result -> new GenericResponseDTO("00", HttpStatus.OK, "Order sent successfully!", order))
+                .onErrorResume(ex -> Mono.just(ProductServiceImpl.sendFailure(ex)));
+    }
+
+    private Mono<GenericResponseDTO> storeInOutbox(Order order) {
+        return outboxOrderRepository.insert(new OutboxOrder(order))
+                .map(stored -> new GenericResponseDTO("00", HttpStatus.OK, "Order accepted successfully!", order))
+                .onErrorResume(DuplicateKeyException.class, ex -> Mono.just(
+                        new GenericResponseDTO("99", HttpStatus.CONFLICT, "An order with this ID has already been placed", null)))
+                .onErrorResume(ex -> Mono.just(new GenericResponseDTO("99", HttpStatus.EXPECTATION_FAILED, ex.getMessage(), null)));
+    }
+
+    private Mono<Product> saveAndCache(Product p) {
+        productCache.invalidate(p.getProduct_id());
+        return productRepository.save(p).doOnNext(productCache::put);
+    }
+}
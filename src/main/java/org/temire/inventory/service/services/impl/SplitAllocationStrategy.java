@@ -0,0 +1,35 @@
+package org.temire.inventory.service.services.impl;
+
+import org.springframework.stereotype.Component;
+import org.temire.inventory.service.data.dto.LocationAllocation;
+import org.temire.inventory.service.data.model.LocationStock;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Splits a line across locations, the best-stocked first, so it is covered from as few as possible.
+@Component
+public class SplitAllocationStrategy implements AllocationStrategy {
+
+    @Override
+    public String name() {
+        return "split";
+    }
+
+    @Override
+    public List<LocationAllocation> allocate(String product_id, int quantity, List<LocationStock> stock, AllocationContext context) {
+        List<LocationStock> byStock = new ArrayList<>(stock);
+        byStock.removeIf(location -> location.getQuantity() == null || location.getQuantity() <= 0);
+        byStock.sort(Comparator.comparingInt(LocationStock::getQuantity).reversed());
+        List<LocationAllocation> allocations = new ArrayList<>();
+        int remaining = quantity;
+        for (LocationStock location : byStock) {
+            if (remaining == 0) break;
+            int take = Math.min(remaining, location.getQuantity());
+            allocations.add(new LocationAllocation(product_id, location.getLocation_id(), take));
+            remaining -= take;
+        }
+        return remaining == 0 ? allocations : List.of();
+    }
+}
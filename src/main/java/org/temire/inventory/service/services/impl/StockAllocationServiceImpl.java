@@ -0,0 +1,166 @@
+package org.temire.inventory.service.services.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.temire.inventory.service.CustomException;
+import org.temire.inventory.service.cache.ProductCache;
+import org.temire.inventory.service.data.dto.CheckedProduct;
+import org.temire.inventory.service.data.dto.LocationAllocation;
+import org.temire.inventory.service.data.model.LocationStock;
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.data.model.Product;
+import org.temire.inventory.service.data.model.StockLocation;
+import org.temire.inventory.service.data.repositories.LocationStockRepository;
+import org.temire.inventory.service.data.repositories.ProductRepository;
+import org.temire.inventory.service.data.repositories.StockLocationRepository;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+import org.temire.inventory.service.services.StockAllocationService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Fulfils an order from per-location stock. The guarded decrements land on the location documents,
+ * so concurrent orders for one product only contend where they draw from the same location. Orders
+ * placed without a location only lower the product's quantity, so the product total is taken with
+ * the same guard once every location line went through, and the location lines are given back when
+ * it comes up short.
+ */
+@Service
+public class StockAllocationServiceImpl implements StockAllocationService {
+
+    private final LocationStockRepository locationStockRepository;
+    private final StockLocationRepository stockLocationRepository;
+    private final ProductRepository productRepository;
+    private final ProductCache productCache;
+    private final Map<String, AllocationStrategy> strategies = new HashMap<>();
+    private final String defaultStrategy;
+
+    public StockAllocationServiceImpl(LocationStockRepository locationStockRepository,
+                                      StockLocationRepository stockLocationRepository,
+                                      ProductRepository productRepository, ProductCache productCache,
+                                      List<AllocationStrategy> strategies,
+                                      @Value("${inventory.allocation.strategy:split}") String defaultStrategy) {
+        this.locationStockRepository = locationStockRepository;
+        this.stockLocationRepository = stockLocationRepository;
+        this.productRepository = productRepository;
+        this.productCache = productCache;
+        strategies.forEach(strategy -> this.strategies.put(strategy.name(), strategy));
+        this.defaultStrategy = defaultStrategy;
+    }
+
+    @Override
+    public GenericResponseDTO allocate(Order order, String strategyName, Double latitude, Double longitude) {
+        try {
+            AllocationStrategy strategy = strategies.get(strategyName == null ? defaultStrategy : strategyName);
+            if (strategy == null)
+                throw new CustomException("Unknown allocation strategy, use one of " + strategies.keySet(), HttpStatus.BAD_REQUEST);
+            Map<String, Integer> quantities = ProductServiceImpl.quantitiesOf(order.getItems());
+
+            // One $in round trip for every line rather than a query per line.
+            Map<String, List<LocationStock>> stockByProduct = new HashMap<>();
+            Map<String, Integer> totals = new HashMap<>();
+            for (LocationStock stock : locationStockRepository.findAllByProductIds(quantities.keySet())) {
+                stockByProduct.computeIfAbsent(stock.getProduct_id(), id -> new ArrayList<>()).add(stock);
+                totals.merge(stock.getProduct_id(), stock.getQuantity() == null ? 0 : stock.getQuantity(), Integer::sum);
+            }
+            AllocationContext context = new AllocationContext(latitude, longitude, strategy.needsLocations() ? locations() : Map.of());
+
+            List<CheckedProduct> checked = ProductServiceImpl.check(order.getItems(), quantities, totals);
+            List<LocationAllocation> plan = new ArrayList<>();
+            quantities.forEach((product_id, quantity) -> {
+                List<LocationAllocation> lines = strategy.allocate(product_id, quantity,
+                        stockByProduct.getOrDefault(product_id, List.of()), context);
+                if (lines.isEmpty()) ProductServiceImpl.markShort(checked, product_id);
+                plan.addAll(lines);
+            });
+            if (!ProductServiceImpl.allAvailable(checked))
+                throw new CustomException("The purchase quantity cannot be allocated from the locations' stock", checked);
+
+            Optional<LocationAllocation> shortLine = locationStockRepository.takeAll(plan);
+            if (shortLine.isPresent()) {
+                ProductServiceImpl.markShort(checked, shortLine.get().getProduct_id());
+                return new GenericResponseDTO("99", HttpStatus.CONFLICT,
+                        "The stock at " + shortLine.get().getLocation_id() + " changed, try again", checked);
+            }
+            Optional<String> shortProduct;
+            try {
+                shortProduct = productRepository.reserveAll(quantities);
+            } catch (RuntimeException ex) {
+                locationStockRepository.giveBackAll(plan);
+                throw ex;
+            }
+            if (shortProduct.isPresent()) {
+                locationStockRepository.giveBackAll(plan);
+                ProductServiceImpl.markShort(checked, shortProduct.get());
+                return new GenericResponseDTO("99", HttpStatus.CONFLICT,
+                        "The purchase quantity of " + shortProduct.get() + " is no longer available", checked);
+            }
+            productCache.invalidateAll(quantities.keySet());
+            return new GenericResponseDTO("00", HttpStatus.OK, "Order allocated successfully!", plan);
+        } catch (CustomException ex) {
+            HttpStatus status = ex.getHttpStatus() != null ? ex.getHttpStatus() : HttpStatus.EXPECTATION_FAILED;
+            return new GenericResponseDTO("99", status, ex.getMessage(), ex.getProductExceedingPurchassbleQTY());
+        } catch (Exception ex) {
+            return new GenericResponseDTO("99", HttpStatus.EXPECTATION_FAILED, ex.getMessage(), null);
+        }
+    }
+
+    @Override
+    public GenericResponseDTO setLocationStock(String product_id, String location_id, int quantity) {
+        if (quantity < 0)
+            return new GenericResponseDTO("99", HttpStatus.BAD_REQUEST, "The quantity cannot be negative", null);
+        if (!productRepository.existsById(product_id))
+            return new GenericResponseDTO("99", HttpStatus.BAD_REQUEST, "No such product: " + product_id, null);
+        if (!stockLocationRepository.existsById(location_id))
+            return new GenericResponseDTO("99", HttpStatus.BAD_REQUEST, "No such location: " + location_id, null);
+        int previous = locationStockRepository.setQuantity(product_id, location_id, quantity);
+        if (quantity != previous) {
+            // Without a transaction the two writes are paired by hand: when the total cannot follow,
+            // the location goes back to what it held so the locations never drift from the total.
+            Optional<Product> updated;
+            try {
+                updated = productRepository.incrementQuantity(product_id, quantity - previous);
+            } catch (RuntimeException ex) {
+                locationStockRepository.restoreQuantity(product_id, location_id, quantity, previous);
+                return new GenericResponseDTO("99", HttpStatus.EXPECTATION_FAILED, ex.getMessage(), null);
+            }
+            if (updated.isEmpty()) {
+                locationStockRepository.restoreQuantity(product_id, location_id, quantity, previous);
+                return new GenericResponseDTO("99", HttpStatus.BAD_REQUEST, "No such product: " + product_id, null);
+            }
+        }
+        productCache.invalidate(product_id);
+        return new GenericResponseDTO("00", HttpStatus.OK, "Location stock updated successfully!",
+                new LocationStock(LocationStock.idOf(product_id, location_id), product_id, location_id, quantity));
+    }
+
+    @Override
+    public GenericResponseDTO findLocationStock(String product_id) {
+        List<LocationStock> stock = locationStockRepository.findAllByProductIds(List.of(product_id));
+        if (stock.isEmpty()) return new GenericResponseDTO("11", HttpStatus.NO_CONTENT, "No stock by location", null);
+        return new GenericResponseDTO("00", HttpStatus.OK, "Search Completed", stock);
+    }
+
+    @Override
+    public GenericResponseDTO saveLocation(StockLocation location) {
+        if (location.getLocation_id() == null || location.getLocation_id().isBlank())
+            return new GenericResponseDTO("99", HttpStatus.BAD_REQUEST, "A location needs a location_id", null);
+        return new GenericResponseDTO("00", HttpStatus.OK, "Location saved successfully!", stockLocationRepository.save(location));
+    }
+
+    @Override
+    public GenericResponseDTO findLocations() {
+        return new GenericResponseDTO("00", HttpStatus.OK, "Search Completed", stockLocationRepository.findAll());
+    }
+
+    private Map<String, StockLocation> locations() {
+        Map<String, StockLocation> locations = new HashMap<>();
+        stockLocationRepository.findAll().forEach(location -> locations.put(location.getLocation_id(), location));
+        return locations;
+    }
+}
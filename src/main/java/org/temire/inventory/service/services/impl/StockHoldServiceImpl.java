@@ -0,0 +1,213 @@
+package org.temire.inventory.service.services.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.temire.inventory.service.CustomException;
+import org.temire.inventory.service.cache.ProductCache;
+import org.temire.inventory.service.cache.TimerWheel;
+import org.temire.inventory.service.data.dto.CheckedProduct;
+import org.temire.inventory.service.data.dto.OrderProduct;
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.data.model.StockHold;
+import org.temire.inventory.service.data.repositories.ProductRepository;
+import org.temire.inventory.service.data.repositories.StockHoldRepository;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+import org.temire.inventory.service.services.StockHoldService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Holds take units out of a product's available quantity when the cart is built instead of when
+ * it is paid for; an abandoned cart gives them back when its hold expires. Each instance expires
+ * the holds it created from a timer wheel, so expiry costs nothing while no hold is due. Holds
+ * whose instance went away are picked up by sweep(), which only reads overdue holds off the
+ * expires_at index.
+ */
+@Service
+public class StockHoldServiceImpl implements StockHoldService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StockHoldServiceImpl.class);
+    private static final int SWEEP_BATCH = 500;
+
+    private final ProductRepository productRepository;
+    private final StockHoldRepository stockHoldRepository;
+    private final ProductCache productCache;
+    private final HotStockLedger hotStockLedger;
+    private final Duration defaultTtl;
+    private final Duration maxTtl;
+    private final TimerWheel<String> expiries;
+    private final Counter held;
+    private final Counter confirmed;
+    private final Counter released;
+    private final Counter expired;
+
+    public StockHoldServiceImpl(ProductRepository productRepository, StockHoldRepository stockHoldRepository,
+                                ProductCache productCache, HotStockLedger hotStockLedger, MeterRegistry meterRegistry,
+                                @Value("${inventory.holds.ttl:15m}") Duration defaultTtl,
+                                @Value("${inventory.holds.max-ttl:2h}") Duration maxTtl,
+                                @Value("${inventory.holds.tick-ms:1000}") long tickMillis) {
+        this.productRepository = productRepository;
+        this.stockHoldRepository = stockHoldRepository;
+        this.productCache = productCache;
+        this.hotStockLedger = hotStockLedger;
+        this.defaultTtl = defaultTtl;
+        this.maxTtl = maxTtl;
+        this.expiries = new TimerWheel<>(Duration.ofMillis(tickMillis), 1024, System.currentTimeMillis());
+        this.held = meterRegistry.counter("inventory.holds", "outcome", "held");
+        this.confirmed = meterRegistry.counter("inventory.holds", "outcome", "confirmed");
+        this.released = meterRegistry.counter("inventory.holds", "outcome", "released");
+        this.expired = meterRegistry.counter("inventory.holds", "outcome", "expired");
+    }
+
+    @Override
+    public GenericResponseDTO hold(Order order, Duration ttl) {
+        try {
+            Duration holdFor = ttl == null ? defaultTtl : ttl;
+            if (holdFor.isNegative() || holdFor.isZero() || holdFor.compareTo(maxTtl) > 0)
+                throw new CustomException("A hold can last at most " + maxTtl, HttpStatus.BAD_REQUEST);
+            Map<String, Integer> quantities = ProductServiceImpl.quantitiesOf(order.getItems());
+            List<CheckedProduct> checked = checkStock(order.getItems(), quantities);
+
+            Optional<String> shortItem = holdAll(quantities);
+            productCache.invalidateAll(quantities.keySet());
+            if (shortItem.isPresent()) {
+                ProductServiceImpl.markShort(checked, shortItem.get());
+                throw new CustomException("The purchase quantity is higher than available products", checked);
+            }
+
+            Instant now = Instant.now();
+            StockHold hold = new StockHold(new ObjectId().toHexString(), holdItems(quantities), now, now.plus(holdFor));
+            try {
+                stockHoldRepository.insert(hold);
+            } catch (RuntimeException ex) {
+                productRepository.releaseHeld(quantities);
+                throw ex;
+            }
+            expiries.schedule(hold.getHold_id(), hold.getExpires_at().toEpochMilli());
+            held.increment();
+            return new GenericResponseDTO("00", HttpStatus.OK, "Stock held successfully!", hold);
+        } catch (CustomException ex) {
+            HttpStatus status = ex.getHttpStatus() != null ? ex.getHttpStatus() : HttpStatus.EXPECTATION_FAILED;
+            return new GenericResponseDTO("99", status, ex.getMessage(), ex.getProductExceedingPurchassbleQTY());
+        } catch (Exception ex) {
+            return new GenericResponseDTO("99", HttpStatus.EXPECTATION_FAILED, ex.getMessage(), null);
+        }
+    }
+
+    // Hot lines are sold from the ledger's allotment; only their reserved count is written here.
+    private Optional<String> holdAll(Map<String, Integer> quantities) {
+        if (!hotStockLedger.anyHot(quantities.keySet())) return productRepository.holdAll(quantities);
+        return hotStockLedger.takeAll(quantities, (hot, cold) -> {
+            Optional<String> shortItem = cold.isEmpty() ? Optional.empty() : productRepository.holdAll(cold);
+            if (shortItem.isPresent() || hot.isEmpty()) return shortItem;
+            try {
+                productRepository.addReserved(hot);
+            } catch (RuntimeException ex) {
+                productRepository.releaseHeld(cold);
+                throw ex;
+            }
+            return shortItem;
+        });
+    }
+
+    // The held units stay out of quantity for good; only the reserved count goes down.
+    @Override
+    public GenericResponseDTO confirm(String hold_id) {
+        Optional<StockHold> hold = stockHoldRepository.takeUnexpired(hold_id, Instant.now());
+        if (hold.isEmpty()) return new GenericResponseDTO("99", HttpStatus.NOT_FOUND, "No such hold, or it has expired");
+        Map<String, Integer> quantities = quantitiesOf(hold.get());
+        productRepository.confirmHeld(quantities);
+        productCache.invalidateAll(quantities.keySet());
+        confirmed.increment();
+        return new GenericResponseDTO("00", HttpStatus.OK, "Hold confirmed successfully!", hold.get());
+    }
+
+    @Override
+    public GenericResponseDTO release(String hold_id) {
+        Optional<StockHold> hold = giveBack(hold_id);
+        if (hold.isEmpty()) return new GenericResponseDTO("99", HttpStatus.NOT_FOUND, "No such hold, or it has expired");
+        released.increment();
+        return new GenericResponseDTO("00", HttpStatus.OK, "Hold released successfully!", hold.get());
+    }
+
+    @Scheduled(fixedRateString = "${inventory.holds.tick-ms:1000}")
+    public void expireDue() {
+        expiries.advance(System.currentTimeMillis(), this::expire);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.holds.sweep-interval-ms:60000}")
+    public void sweep() {
+        try {
+            List<StockHold> overdue;
+            do {
+                overdue = stockHoldRepository.findExpiredBy(Instant.now(), PageRequest.of(0, SWEEP_BATCH, Sort.by("expires_at")));
+                overdue.forEach(hold -> expire(hold.getHold_id()));
+            } while (overdue.size() == SWEEP_BATCH);
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Could not sweep expired stock holds: {}", ex.getMessage());
+        }
+    }
+
+    // A hold that was confirmed or released in the meantime is simply gone.
+    private void expire(String hold_id) {
+        try {
+            if (giveBack(hold_id).isPresent()) expired.increment();
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Could not expire stock hold {}: {}", hold_id, ex.getMessage());
+        }
+    }
+
+    // The hold is removed before the stock goes back, so two callers can never both return it.
+    private Optional<StockHold> giveBack(String hold_id) {
+        Optional<StockHold> hold = stockHoldRepository.take(hold_id);
+        hold.ifPresent(taken -> {
+            Map<String, Integer> quantities = quantitiesOf(taken);
+            productRepository.releaseHeld(quantities);
+            productCache.invalidateAll(quantities.keySet());
+        });
+        return hold;
+    }
+
+    // An unknown product is reported as such rather than as short.
+    private List<CheckedProduct> checkStock(List<OrderProduct> items, Map<String, Integer> quantities) {
+        Map<String, Integer> stock = new HashMap<>();
+        productRepository.findAllById(quantities.keySet()).forEach(p ->
+                stock.put(p.getProduct_id(), p.getQuantity() == null ? 0 : p.getQuantity()));
+        for (String product_id : quantities.keySet()) {
+            if (!stock.containsKey(product_id))
+                throw new CustomException("No such product: " + product_id, HttpStatus.BAD_REQUEST);
+        }
+        List<CheckedProduct> checked = ProductServiceImpl.check(items, quantities, stock);
+        if (!ProductServiceImpl.allAvailable(checked))
+            throw new CustomException("The purchase quantity is higher than available products", checked);
+        return checked;
+    }
+
+    private static List<OrderProduct> holdItems(Map<String, Integer> quantities) {
+        List<OrderProduct> items = new ArrayList<>(quantities.size());
+        quantities.forEach((product_id, quantity) -> items.add(new OrderProduct(product_id, null, null, 0, quantity)));
+        return items;
+    }
+
+    private static Map<String, Integer> quantitiesOf(StockHold hold) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (OrderProduct item : hold.getItems()) quantities.merge(item.getProduct_id(), item.getQuantity(), Integer::sum);
+        return quantities;
+    }
+}
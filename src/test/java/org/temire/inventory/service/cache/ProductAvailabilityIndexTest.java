@@ -0,0 +1,58 @@
+package org.temire.inventory.service.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.temire.inventory.service.data.model.Product;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductAvailabilityIndexTest {
+
+    private ProductAvailabilityIndex productAvailabilityIndexUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        productAvailabilityIndexUnderTest = new ProductAvailabilityIndex();
+        productAvailabilityIndexUnderTest.load(List.of(
+                new Product("a", "name", "description", 1.0, 5),
+                new Product("b", "name", "description", 1.0, 0),
+                new Product("c", "name", "description", 1.0, 5),
+                new Product("d", "name", "description", 1.0, 2),
+                new Product("e", "name", "description", 1.0, null)).iterator());
+    }
+
+    @Test
+    void testFindAvailable() {
+        // Run the test
+        final List<Product> result = productAvailabilityIndexUnderTest.findAvailable(1, 1, 10);
+
+        // Verify the results
+        assertThat(productAvailabilityIndexUnderTest.isReady()).isTrue();
+        assertThat(result).extracting(Product::getProduct_id).containsExactly("a", "c");
+    }
+
+    @Test
+    void testFindAvailablePageAfter() {
+        // Run the test
+        final List<Product> first = productAvailabilityIndexUnderTest.findAvailablePageAfter(1, null, null, 2);
+        final List<Product> second = productAvailabilityIndexUnderTest.findAvailablePageAfter(1, 5, "a", 2);
+
+        // Verify the results
+        assertThat(first).extracting(Product::getProduct_id).containsExactly("d", "a");
+        assertThat(second).extracting(Product::getProduct_id).containsExactly("c");
+    }
+
+    @Test
+    void testPutAndRemove() {
+        // Run the test
+        productAvailabilityIndexUnderTest.put(new Product("a", "name", "description", 1.0, 1));
+        productAvailabilityIndexUnderTest.remove("c");
+        productAvailabilityIndexUnderTest.put(new Product("d", "name", "description", 1.0, null));
+
+        // Verify the results
+        assertThat(productAvailabilityIndexUnderTest.findAvailable(0, 0, 10))
+                .extracting(Product::getProduct_id).containsExactly("b", "a");
+    }
+}
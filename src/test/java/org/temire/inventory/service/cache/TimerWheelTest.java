@@ -0,0 +1,52 @@
+package org.temire.inventory.service.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimerWheelTest {
+
+    @Test
+    void testAdvance() {
+        // Setup
+        final TimerWheel<String> wheel = new TimerWheel<>(Duration.ofMillis(100), 8, 0);
+        wheel.schedule("soon", 250);
+        wheel.schedule("next round", 1_250);
+        wheel.schedule("overdue", -50);
+        final List<String> fired = new ArrayList<>();
+
+        // Run the test
+        wheel.advance(100, fired::add);
+        final List<String> firstTick = new ArrayList<>(fired);
+        wheel.advance(300, fired::add);
+        final List<String> secondTick = new ArrayList<>(fired);
+        wheel.advance(1_300, fired::add);
+
+        // Verify the results
+        assertThat(firstTick).containsExactly("overdue");
+        assertThat(secondTick).containsExactly("overdue", "soon");
+        assertThat(fired).containsExactly("overdue", "soon", "next round");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void testAdvance_AfterMoreThanOneRevolution() {
+        // Setup
+        final TimerWheel<String> wheel = new TimerWheel<>(Duration.ofMillis(100), 4, 0);
+        wheel.schedule("a", 150);
+        wheel.schedule("b", 350);
+        wheel.schedule("c", 5_000);
+        final List<String> fired = new ArrayList<>();
+
+        // Run the test
+        wheel.advance(2_000, fired::add);
+
+        // Verify the results
+        assertThat(fired).containsExactlyInAnyOrder("a", "b");
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,91 @@
+package org.temire.inventory.service.data;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Query;
+import org.temire.inventory.service.CustomException;
+import org.temire.inventory.service.data.dto.ProductStock;
+import org.temire.inventory.service.data.model.Product;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductFieldsTest {
+
+    @Test
+    void testIncludeIn() {
+        // Run the test
+        final Query result = ProductFields.parse("quantity, name").includeIn(new Query());
+
+        // Verify the results
+        assertThat(result.getFieldsObject()).isEqualTo(new Document("name", 1).append("quantity", 1));
+    }
+
+    @Test
+    void testParse_UnknownField() {
+        // Run the test
+        assertThatThrownBy(() -> ProductFields.parse("name,cost"))
+                // Verify the results
+                .isInstanceOf(CustomException.class)
+                .hasMessageContaining("cost");
+    }
+
+    @Test
+    void testFromMongo() {
+        // Run the test
+        final Document result = ProductFields.parse("price").fromMongo(new Document("_id", "a").append("price", 2.5));
+
+        // Verify the results
+        assertThat(result).isEqualTo(new Document("product_id", "a").append("price", 2.5));
+    }
+
+    @Test
+    void testFromMongo_ObjectId() {
+        // Setup
+        final ObjectId id = new ObjectId("6401f0c2a1b2c3d4e5f60718");
+
+        // Run the test
+        final Document result = ProductFields.parse("quantity").fromMongo(new Document("_id", id).append("quantity", 4));
+
+        // Verify the results
+        assertThat(result).isEqualTo(new Document("product_id", "6401f0c2a1b2c3d4e5f60718").append("quantity", 4));
+        assertThat(result.getString("product_id")).isEqualTo(id.toHexString());
+    }
+
+    @Test
+    void testProject() {
+        // Run the test
+        final Document result = ProductFields.parse("quantity").project(new Product("a", "name", "description", 1.0, 4));
+
+        // Verify the results
+        assertThat(result).isEqualTo(new Document("product_id", "a").append("quantity", 4));
+    }
+
+    @Test
+    void testToMongo() {
+        // Run the test
+        final Sort result = ProductFields.toMongo(Sort.by("quantity", "product_id"));
+
+        // Verify the results
+        assertThat(result).isEqualTo(Sort.by("quantity", "_id"));
+    }
+
+    @Test
+    void testStockViewPayload() throws Exception {
+        // Setup
+        final ObjectMapper objectMapper = new ObjectMapper();
+        final Product product = new Product("6401f0c2a1b2c3d4e5f60718", "Stainless steel water bottle, 750ml",
+                "Double-walled, vacuum insulated bottle that keeps drinks cold for 24 hours and hot for 12. "
+                        + "Leak-proof lid, powder-coated finish, dishwasher safe.", 24.99, 120);
+
+        // Run the test
+        final int full = objectMapper.writeValueAsBytes(product).length;
+        final int stock = objectMapper.writeValueAsBytes(new ProductStock(product.getProduct_id(), product.getQuantity())).length;
+
+        // Verify the results
+        assertThat(stock * 3).isLessThan(full);
+    }
+}
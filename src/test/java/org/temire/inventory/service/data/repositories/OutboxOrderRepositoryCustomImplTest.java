@@ -0,0 +1,90 @@
+package org.temire.inventory.service.data.repositories;
+
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.data.model.OutboxOrder;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxOrderRepositoryCustomImplTest {
+
+    @Mock
+    private MongoTemplate mockMongoTemplate;
+
+    private OutboxOrderRepositoryCustomImpl outboxOrderRepositoryCustomImplUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        outboxOrderRepositoryCustomImplUnderTest = new OutboxOrderRepositoryCustomImpl(mockMongoTemplate);
+    }
+
+    @Test
+    void testClaimBatch() {
+        // Setup
+        final OutboxOrder due = entry("o-1");
+        final OutboxOrder claimed = entry("o-1");
+        when(mockMongoTemplate.find(any(Query.class), eq(OutboxOrder.class))).thenReturn(List.of(due), List.of(claimed));
+        when(mockMongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(OutboxOrder.class)))
+                .thenReturn(UpdateResult.acknowledged(1, 1L, null));
+        final Instant before = Instant.now();
+
+        // Run the test
+        final List<OutboxOrder> result = outboxOrderRepositoryCustomImplUnderTest.claimBatch("relay", 10, Duration.ofSeconds(60));
+
+        // Verify the results
+        assertThat(result).containsExactly(claimed);
+        final ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        final ArgumentCaptor<Update> lease = ArgumentCaptor.forClass(Update.class);
+        verify(mockMongoTemplate).updateMulti(queries.capture(), lease.capture(), eq(OutboxOrder.class));
+        final Document leased = queries.getValue().getQueryObject();
+        assertThat(leased.get("_id", Document.class).get("$in", List.class)).containsExactly("o-1");
+        assertThat(leased.get("next_attempt_at", Document.class)).containsKey("$lte");
+
+        final Document set = lease.getValue().getUpdateObject().get("$set", Document.class);
+        assertThat(set.getString("claim_id")).startsWith("relay:");
+        assertThat(set.get("next_attempt_at", Instant.class)).isAfterOrEqualTo(before.plusSeconds(60));
+
+        verify(mockMongoTemplate, times(2)).find(queries.capture(), eq(OutboxOrder.class));
+        assertThat(queries.getAllValues().get(2).getQueryObject().getString("claim_id")).isEqualTo(set.getString("claim_id"));
+    }
+
+    @Test
+    void testClaimBatch_NothingDue() {
+        // Setup
+        when(mockMongoTemplate.find(any(Query.class), eq(OutboxOrder.class))).thenReturn(List.of());
+
+        // Run the test
+        final List<OutboxOrder> result = outboxOrderRepositoryCustomImplUnderTest.claimBatch("relay", 10, Duration.ofSeconds(60));
+
+        // Verify the results
+        assertThat(result).isEmpty();
+        verify(mockMongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), eq(OutboxOrder.class));
+    }
+
+    private static OutboxOrder entry(String order_id) {
+        final Order order = new Order();
+        order.setOrder_id(order_id);
+        return new OutboxOrder(order);
+    }
+}
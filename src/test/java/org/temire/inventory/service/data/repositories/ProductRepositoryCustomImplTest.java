@@ -0,0 +1,185 @@
+package org.temire.inventory.service.data.repositories;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.bulk.BulkWriteUpsert;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.temire.inventory.service.data.ProductFields;
+import org.temire.inventory.service.data.model.Product;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+@ExtendWith(MockitoExtension.class)
+class ProductRepositoryCustomImplTest {
+
+    @Mock
+    private MongoTemplate mockMongoTemplate;
+    @Mock
+    private BulkOperations mockBulkOperations;
+
+    private ProductRepositoryCustomImpl productRepositoryCustomImplUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        productRepositoryCustomImplUnderTest = new ProductRepositoryCustomImpl(mockMongoTemplate);
+    }
+
+    private static Query guarded(String product_id, int quantity) {
+        return new Query(where("_id").is(product_id)).addCriteria(where("$expr").is(Document.parse(
+                "{$gte: [{$subtract: ['$quantity', {$ifNull: ['$hot_held', 0]}]}, " + quantity + "]}")));
+    }
+
+    private static Update taken(int quantity) {
+        return ProductRepositoryCustomImpl.stockDelta(-quantity).setOnInsert(GuardedTake.PLACEHOLDER, true);
+    }
+
+    @Test
+    void testReserveAll() {
+        // Setup
+        final Map<String, Integer> quantities = new LinkedHashMap<>();
+        quantities.put("a", 2);
+        quantities.put("b", 3);
+        when(mockMongoTemplate.bulkOps(BulkOperations.BulkMode.ORDERED, Product.class)).thenReturn(mockBulkOperations);
+        when(mockBulkOperations.execute()).thenReturn(BulkWriteResult.acknowledged(0, 2, 0, 2, List.of()));
+
+        // Run the test
+        final Optional<String> result = productRepositoryCustomImplUnderTest.reserveAll(quantities);
+
+        // Verify the results
+        assertThat(result).isEmpty();
+        verify(mockBulkOperations).upsert(guarded("a", 2), taken(2));
+        verify(mockBulkOperations).upsert(guarded("b", 3), taken(3));
+        verify(mockBulkOperations, times(1)).execute();
+    }
+
+    @Test
+    void testReserveAll_ShortLineGivesBackTheOthers() {
+        // Setup
+        final Map<String, Integer> quantities = new LinkedHashMap<>();
+        quantities.put("a", 2);
+        quantities.put("b", 3);
+        quantities.put("c", 1);
+        when(mockMongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Product.class))).thenReturn(mockBulkOperations);
+        // The upsert of a short line collides with the product's own _id and stops the ordered bulk.
+        when(mockBulkOperations.execute())
+                .thenThrow(new BulkOperationException("E11000", new MongoBulkWriteException(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of()),
+                        List.of(new BulkWriteError(11000, "E11000", new BsonDocument(), 1)), null, new ServerAddress(), Set.of())))
+                .thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of()));
+
+        // Run the test
+        final Optional<String> result = productRepositoryCustomImplUnderTest.reserveAll(quantities);
+
+        // Verify the results
+        assertThat(result).contains("b");
+        verify(mockBulkOperations).updateOne(new Query(where("_id").is("a")), ProductRepositoryCustomImpl.stockDelta(2));
+        verify(mockBulkOperations, never()).updateOne(new Query(where("_id").is("c")), ProductRepositoryCustomImpl.stockDelta(1));
+        verify(mockBulkOperations, times(2)).execute();
+    }
+
+    @Test
+    void testReserveAll_MissingProductIsRemovedAgain() {
+        // Setup
+        final Map<String, Integer> quantities = new LinkedHashMap<>();
+        quantities.put("a", 2);
+        quantities.put("b", 3);
+        when(mockMongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Product.class))).thenReturn(mockBulkOperations);
+        // A product removed since the stock check is upserted as a placeholder rather than failing the bulk.
+        when(mockBulkOperations.execute())
+                .thenReturn(BulkWriteResult.acknowledged(0, 1, 0, 1, List.of(new BulkWriteUpsert(1, new BsonString("b")))))
+                .thenReturn(BulkWriteResult.acknowledged(0, 1, 1, 1, List.of()));
+
+        // Run the test
+        final Optional<String> result = productRepositoryCustomImplUnderTest.reserveAll(quantities);
+
+        // Verify the results
+        assertThat(result).contains("b");
+        verify(mockBulkOperations).updateOne(new Query(where("_id").is("a")), ProductRepositoryCustomImpl.stockDelta(2));
+        verify(mockBulkOperations).remove(new Query(where("_id").is("b").and(GuardedTake.PLACEHOLDER).is(true)));
+    }
+
+    @Test
+    void testFindPageAfter_ObjectId() {
+        // Setup
+        when(mockMongoTemplate.getCollectionName(Product.class)).thenReturn("product");
+        when(mockMongoTemplate.find(any(Query.class), eq(Document.class), eq("product"))).thenReturn(List.of(
+                new Document("_id", new ObjectId("6401f0c2a1b2c3d4e5f60718")).append("price", 2.5)));
+
+        // Run the test
+        final List<Document> result = productRepositoryCustomImplUnderTest.findPageAfter(null, 1, ProductFields.parse("price"));
+
+        // Verify the results
+        assertThat(result).containsExactly(new Document("product_id", "6401f0c2a1b2c3d4e5f60718").append("price", 2.5));
+    }
+
+    private static Document mapped(Query query) {
+        final MongoMappingContext mappingContext = new MongoMappingContext();
+        final QueryMapper queryMapper = new QueryMapper(new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext));
+        return queryMapper.getMappedObject(query.getQueryObject(), mappingContext.getPersistentEntity(Product.class));
+    }
+
+    @Test
+    void testPageAfter_ObjectIdCursor() {
+        // Run the test
+        final Document result = mapped(ProductRepositoryCustomImpl.pageAfter("6401f0c2a1b2c3d4e5f60718", 10));
+
+        // Verify the results
+        assertThat(result).isEqualTo(new Document("_id", new Document("$gt", new ObjectId("6401f0c2a1b2c3d4e5f60718"))));
+    }
+
+    @Test
+    void testPageAfter_StringCursor() {
+        // Run the test
+        final Document result = mapped(ProductRepositoryCustomImpl.pageAfter("product-010", 10));
+
+        // Verify the results
+        assertThat(result).isEqualTo(Document.parse(
+                "{$or: [{_id: {$gt: 'product-010'}}, {_id: {$type: ['objectId']}}]}"));
+    }
+
+    @Test
+    void testAvailablePageAfter_ObjectIdCursor() {
+        // Run the test
+        final Document result = mapped(ProductRepositoryCustomImpl.availablePageAfter(1, 4, "6401f0c2a1b2c3d4e5f60718", 10));
+
+        // Verify the results
+        assertThat(result).isEqualTo(new Document("$and", List.of(
+                new Document("quantity", new Document("$gte", 1)),
+                new Document("$or", List.of(
+                        new Document("quantity", new Document("$gt", 4)),
+                        new Document("$and", List.of(
+                                new Document("quantity", 4),
+                                new Document("_id", new Document("$gt", new ObjectId("6401f0c2a1b2c3d4e5f60718"))))))))));
+    }
+}
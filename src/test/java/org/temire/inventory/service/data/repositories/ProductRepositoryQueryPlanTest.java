@@ -0,0 +1,191 @@
+package org.temire.inventory.service.data.repositories;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.test.autoconfigure.data.mongo.DataMongoTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.temire.inventory.service.data.MongoIndexInitializer;
+import org.temire.inventory.service.data.ProductFields;
+import org.temire.inventory.service.data.model.Product;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Runs the repository queries against a real mongod, captures the commands the driver sends and
+ * explains each of them, failing if the winning plan scans the whole collection.
+ * Point inventory.test.mongodb.uri (default mongodb://localhost:27017) at a disposable server;
+ * the test is skipped when none is reachable.
+ */
+@DataMongoTest
+@Import(MongoIndexInitializer.class)
+class ProductRepositoryQueryPlanTest {
+
+    private static final String MONGODB_URI = System.getProperty("inventory.test.mongodb.uri", "mongodb://localhost:27017");
+    private static final List<Document> COMMANDS = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private ProductRepository productRepository;
+    @Autowired
+    private OutboxOrderRepository outboxOrderRepository;
+    @Autowired
+    private StockHoldRepository stockHoldRepository;
+    @Autowired
+    private LocationStockRepository locationStockRepository;
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    @Autowired
+    private MongoIndexInitializer mongoIndexInitializer;
+
+    @BeforeAll
+    static void requireMongo() {
+        ConnectionString connectionString = new ConnectionString(MONGODB_URI);
+        boolean reachable;
+        try (MongoClient client = MongoClients.create(MongoClientSettings.builder()
+                .applyConnectionString(connectionString)
+                .applyToClusterSettings(cluster -> cluster.serverSelectionTimeout(2, TimeUnit.SECONDS))
+                .build())) {
+            client.getDatabase("admin").runCommand(new Document("ping", 1));
+            reachable = true;
+        } catch (RuntimeException ex) {
+            reachable = false;
+        }
+        assumeTrue(reachable, "No MongoDB reachable at " + MONGODB_URI);
+    }
+
+    @DynamicPropertySource
+    static void mongoProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", () -> MONGODB_URI + "/inventory_query_plan_test");
+    }
+
+    @BeforeEach
+    void setUp() {
+        mongoIndexInitializer.ensureIndexes();
+        mongoTemplate.remove(new Query(), Product.class);
+        for (int i = 0; i < 50; i++) {
+            productRepository.save(new Product(String.format("product-%03d", i), "name", "description", 1.0, i % 10));
+        }
+        COMMANDS.clear();
+    }
+
+    @Test
+    void testProductQueriesUseIndexes() {
+        // Run the test
+        productRepository.findWithCondition(PageRequest.of(0, 10), 5);
+        productRepository.findPageAfter("product-010", 10);
+        productRepository.findAvailablePageAfter(1, null, null, 10);
+        productRepository.findAvailablePageAfter(1, 4, "product-014", 10);
+        productRepository.findAllById(List.of("product-001", "product-002"));
+        productRepository.findPageAfter("product-010", 10, ProductFields.parse("name"));
+        productRepository.findAvailablePageAfter(1, 4, "product-014", 10, ProductFields.parse("price").with("quantity"));
+        productRepository.findStockPageAfter("product-010", 10);
+        productRepository.findStockByIds(List.of("product-001", "product-002"));
+        productRepository.findVersion("product-001");
+
+        // Verify the results
+        assertNoCollectionScans("product");
+    }
+
+    @Test
+    void testOutboxClaimUsesIndexes() {
+        // Run the test
+        outboxOrderRepository.claimBatch("owner", 10, Duration.ofSeconds(30));
+
+        // Verify the results
+        assertNoCollectionScans("order_outbox");
+    }
+
+    @Test
+    void testHoldSweepUsesIndexes() {
+        // Run the test
+        stockHoldRepository.findExpiredBy(Instant.now(), PageRequest.of(0, 10, Sort.by("expires_at")));
+
+        // Verify the results
+        assertNoCollectionScans("stock_holds");
+    }
+
+    @Test
+    void testLocationStockLookupUsesIndexes() {
+        // Run the test
+        locationStockRepository.findAllByProductIds(List.of("product-001", "product-002"));
+
+        // Verify the results
+        assertNoCollectionScans("location_stock");
+    }
+
+    private void assertNoCollectionScans(String collection) {
+        List<Document> finds = new ArrayList<>();
+        for (Document command : COMMANDS) {
+            if (collection.equals(command.get("find"))) finds.add(command);
+        }
+        assertThat(finds).isNotEmpty();
+        for (Document find : finds) {
+            Document explain = mongoTemplate.getDb().runCommand(
+                    new Document("explain", explainable(find)).append("verbosity", "queryPlanner"));
+            Document winningPlan = explain.get("queryPlanner", Document.class).get("winningPlan", Document.class);
+            assertThat(stages(winningPlan, new ArrayList<>()))
+                    .as("plan for %s", find.toJson())
+                    .doesNotContain("COLLSCAN");
+        }
+    }
+
+    private static Document explainable(Document command) {
+        Document copy = new Document();
+        command.forEach((key, value) -> {
+            if (!key.startsWith("$") && !key.equals("lsid") && !key.equals("txnNumber")) copy.put(key, value);
+        });
+        return copy;
+    }
+
+    private static List<String> stages(Object plan, List<String> found) {
+        if (plan instanceof Document) {
+            Document document = (Document) plan;
+            Object stage = document.get("stage");
+            if (stage != null) found.add(stage.toString());
+            for (Object value : document.values()) stages(value, found);
+        } else if (plan instanceof List) {
+            for (Object value : (List<?>) plan) stages(value, found);
+        }
+        return found;
+    }
+
+    @TestConfiguration
+    static class CommandCapture {
+
+        @Bean
+        MongoClientSettingsBuilderCustomizer captureCommands() {
+            CommandListener listener = new CommandListener() {
+                @Override
+                public void commandStarted(CommandStartedEvent event) {
+                    COMMANDS.add(Document.parse(event.getCommand().toJson()));
+                }
+            };
+            return builder -> builder.addCommandListener(listener);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.temire.inventory.service.kafka.consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.temire.inventory.service.data.dto.OrderResult;
+import org.temire.inventory.service.data.model.FulfilledOrder;
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.data.repositories.FulfilledOrderRepository;
+import org.temire.inventory.service.kafka.producer.OrderResultProducer;
+import org.temire.inventory.service.services.ProductService;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderFulfilmentConsumerTest {
+
+    @Mock
+    private ProductService mockProductService;
+    @Mock
+    private OrderResultProducer mockOrderResultProducer;
+    @Mock
+    private FulfilledOrderRepository mockFulfilledOrderRepository;
+
+    private OrderFulfilmentConsumer orderFulfilmentConsumerUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        orderFulfilmentConsumerUnderTest = new OrderFulfilmentConsumer(mockProductService, mockOrderResultProducer,
+                mockFulfilledOrderRepository, Duration.ofDays(7));
+    }
+
+    @Test
+    void testConsume_RedeliveredOrdersAreNotFulfilledAgain() {
+        // Setup
+        final Order first = order("o-1");
+        final Order second = order("o-2");
+        final OrderResult previous = new OrderResult("o-1", true, "Order fulfilled", null);
+        final OrderResult fulfilled = new OrderResult("o-2", true, "Order fulfilled", null);
+        when(mockFulfilledOrderRepository.claimAll(any(), any(Instant.class), any(Instant.class)))
+                .thenReturn(Set.of("o-2"));
+        when(mockProductService.fulfilOrders(List.of(second))).thenReturn(List.of(fulfilled));
+        when(mockFulfilledOrderRepository.findAllById(List.of("o-1")))
+                .thenReturn(List.of(new FulfilledOrder("o-1", previous, Instant.now(), Instant.now())));
+        when(mockOrderResultProducer.sendAll(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // Run the test
+        orderFulfilmentConsumerUnderTest.consume(Arrays.asList(first, null, second));
+
+        // Verify the results
+        verify(mockFulfilledOrderRepository).completeAll(List.of(fulfilled));
+        final ArgumentCaptor<List<OrderResult>> sent = ArgumentCaptor.forClass(List.class);
+        verify(mockOrderResultProducer).sendAll(sent.capture());
+        assertThat(sent.getValue()).containsExactly(previous, fulfilled);
+    }
+
+    @Test
+    void testConsume_InterruptedClaimIsReportedNotRetried() {
+        // Setup
+        when(mockFulfilledOrderRepository.claimAll(any(), any(Instant.class), any(Instant.class)))
+                .thenReturn(Collections.emptySet());
+        when(mockFulfilledOrderRepository.findAllById(List.of("o-1")))
+                .thenReturn(List.of(new FulfilledOrder("o-1", null, Instant.now(), Instant.now())));
+        when(mockOrderResultProducer.sendAll(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        // Run the test
+        orderFulfilmentConsumerUnderTest.consume(List.of(order("o-1")));
+
+        // Verify the results
+        verify(mockProductService, never()).fulfilOrders(any());
+        final ArgumentCaptor<List<OrderResult>> sent = ArgumentCaptor.forClass(List.class);
+        verify(mockOrderResultProducer).sendAll(sent.capture());
+        assertThat(sent.getValue()).extracting(OrderResult::getOrder_id, OrderResult::isAccepted)
+                .containsExactly(tuple("o-1", false));
+    }
+
+    @Test
+    void testConsume_FailedReservationGivesTheClaimsBack() {
+        // Setup
+        when(mockFulfilledOrderRepository.claimAll(any(), any(Instant.class), any(Instant.class)))
+                .thenReturn(Set.of("o-1"));
+        when(mockProductService.fulfilOrders(any())).thenThrow(new IllegalStateException("mongo down"));
+
+        // Run the test
+        assertThatThrownBy(() -> orderFulfilmentConsumerUnderTest.consume(List.of(order("o-1"))))
+                .isInstanceOf(IllegalStateException.class);
+
+        // Verify the results
+        verify(mockFulfilledOrderRepository).deleteAllById(Set.of("o-1"));
+        verify(mockFulfilledOrderRepository, never()).completeAll(any());
+        verify(mockOrderResultProducer, never()).sendAll(any());
+    }
+
+    private static Order order(String order_id) {
+        final Order order = new Order();
+        order.setOrder_id(order_id);
+        return order;
+    }
+}
@@ -0,0 +1,114 @@
+package org.temire.inventory.service.kafka.producer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaBroker;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.kafka.test.utils.KafkaTestUtils;
+import org.temire.inventory.service.data.dto.OrderProduct;
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.kafka.serialization.OrderDeserializer;
+import org.temire.inventory.service.kafka.serialization.OrderSerializer;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EmbeddedKafka(partitions = KafkaProducerPartitioningTest.PARTITIONS, topics = KafkaProducerPartitioningTest.TOPIC)
+class KafkaProducerPartitioningTest {
+
+    static final String TOPIC = "make_order";
+    static final int PARTITIONS = 3;
+
+    private final EmbeddedKafkaBroker broker;
+    private DefaultKafkaProducerFactory<String, Order> producerFactory;
+    private Consumer<String, Order> consumer;
+
+    KafkaProducerPartitioningTest(EmbeddedKafkaBroker broker) {
+        this.broker = broker;
+    }
+
+    @BeforeEach
+    void setUp() {
+        producerFactory = new DefaultKafkaProducerFactory<>(KafkaTestUtils.producerProps(broker),
+                new StringSerializer(), new OrderSerializer());
+        Map<String, Object> consumerProps = KafkaTestUtils.consumerProps("partitioning-test", "false", broker);
+        consumer = new DefaultKafkaConsumerFactory<>(consumerProps, new StringDeserializer(), new OrderDeserializer())
+                .createConsumer();
+        broker.consumeFromAnEmbeddedTopic(consumer, TOPIC);
+    }
+
+    @AfterEach
+    void tearDown() {
+        consumer.close();
+        producerFactory.destroy();
+    }
+
+    @Test
+    void testSendMessage_KeyedByCustomer() {
+        // Setup
+        final KafkaProducer producerUnderTest = new KafkaProducer(new KafkaTemplate<>(producerFactory), TOPIC, 100,
+                Duration.ofSeconds(1), "customer", new SimpleMeterRegistry());
+        final List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 60; i++) orders.add(order("order-" + i, "customer-" + (i % 20) + "@example.com"));
+
+        // Run the test
+        final List<CompletableFuture<?>> sent = new ArrayList<>();
+        for (Order order : orders) sent.add(producerUnderTest.sendMessage(order));
+        CompletableFuture.allOf(sent.toArray(new CompletableFuture[0])).join();
+
+        // Verify the results
+        final Map<String, Set<Integer>> partitionsByKey = new HashMap<>();
+        final Map<String, List<String>> orderIdsByKey = new HashMap<>();
+        int received = 0;
+        while (received < orders.size()) {
+            for (ConsumerRecord<String, Order> record : KafkaTestUtils.getRecords(consumer, 10_000)) {
+                partitionsByKey.computeIfAbsent(record.key(), k -> new HashSet<>()).add(record.partition());
+                orderIdsByKey.computeIfAbsent(record.key(), k -> new ArrayList<>()).add(record.value().getOrder_id());
+                received++;
+            }
+        }
+        assertThat(partitionsByKey).hasSize(20);
+        assertThat(partitionsByKey.values()).allSatisfy(partitions -> assertThat(partitions).hasSize(1));
+        final Set<Integer> usedPartitions = new HashSet<>();
+        partitionsByKey.values().forEach(usedPartitions::addAll);
+        assertThat(usedPartitions).hasSize(PARTITIONS);
+        assertThat(orderIdsByKey.get("customer-3@example.com")).containsExactly("order-3", "order-23", "order-43");
+    }
+
+    @Test
+    void testKeyFor_DefaultsToOrderId() {
+        // Setup
+        final KafkaProducer producerUnderTest = new KafkaProducer(new KafkaTemplate<>(producerFactory), TOPIC, 100,
+                Duration.ofSeconds(1), "order_id", new SimpleMeterRegistry());
+
+        // Run the test
+        final String result = producerUnderTest.keyFor(order("order_id", "customer_email"));
+
+        // Verify the results
+        assertThat(result).isEqualTo("order_id");
+    }
+
+    private static Order order(String orderId, String customerEmail) {
+        return new Order(orderId, List.of(new OrderProduct("product_id", "name", "description", 1.0, 1)), 1.0,
+                LocalDate.of(2020, 1, 1), null, "delivery_address", "customer_name", customerEmail, "customer_phone",
+                false);
+    }
+}
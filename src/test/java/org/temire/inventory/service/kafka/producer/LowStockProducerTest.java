@@ -0,0 +1,89 @@
+package org.temire.inventory.service.kafka.producer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.util.concurrent.SettableListenableFuture;
+import org.temire.inventory.service.data.dto.LowStockEvent;
+import org.temire.inventory.service.data.model.Product;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LowStockProducerTest {
+
+    @Mock
+    private KafkaTemplate<String, LowStockEvent> mockKafkaTemplate;
+
+    private LowStockProducer lowStockProducerUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        lowStockProducerUnderTest = new LowStockProducer(mockKafkaTemplate, "low_stock", true, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testFlush_CoalescesEventsPerProduct() {
+        // Setup
+        final SettableListenableFuture<SendResult<String, LowStockEvent>> sent = new SettableListenableFuture<>();
+        sent.set(null);
+        when(mockKafkaTemplate.send(eq("low_stock"), any(String.class), any(LowStockEvent.class))).thenReturn(sent);
+        lowStockProducerUnderTest.onDecrement("a", 10, 9, 2);
+        lowStockProducerUnderTest.onDecrement("a", 10, 4, 7);
+        lowStockProducerUnderTest.onDecrement("b", 10, 10, 1);
+
+        // Run the test
+        lowStockProducerUnderTest.flush();
+        lowStockProducerUnderTest.flush();
+
+        // Verify the results
+        final ArgumentCaptor<LowStockEvent> events = ArgumentCaptor.forClass(LowStockEvent.class);
+        verify(mockKafkaTemplate, times(2)).send(eq("low_stock"), any(String.class), events.capture());
+        assertThat(events.getAllValues()).extracting(LowStockEvent::getProduct_id, LowStockEvent::getQuantity)
+                .containsExactlyInAnyOrder(tuple("a", 4), tuple("b", 10));
+    }
+
+    @Test
+    void testOnDecrement_IgnoresDecrementsThatDoNotCrossTheThreshold() {
+        // Run the test
+        lowStockProducerUnderTest.onDecrement("a", 10, 11, 3);
+        lowStockProducerUnderTest.onDecrement("b", 10, 5, 1);
+        lowStockProducerUnderTest.onDecrement(new Product("c", "name", "description", 1.0, 0), 5);
+        lowStockProducerUnderTest.flush();
+
+        // Verify the results
+        verify(mockKafkaTemplate, never()).send(any(String.class), any(String.class), any(LowStockEvent.class));
+    }
+
+    @Test
+    void testFlush_RetriesAFailedSend() {
+        // Setup
+        final SettableListenableFuture<SendResult<String, LowStockEvent>> failed = new SettableListenableFuture<>();
+        failed.setException(new IllegalStateException("broker down"));
+        final SettableListenableFuture<SendResult<String, LowStockEvent>> sent = new SettableListenableFuture<>();
+        sent.set(null);
+        when(mockKafkaTemplate.send(eq("low_stock"), eq("a"), any(LowStockEvent.class))).thenReturn(failed, sent);
+        lowStockProducerUnderTest.onDecrement("a", 10, 9, 2);
+
+        // Run the test
+        lowStockProducerUnderTest.flush();
+        lowStockProducerUnderTest.flush();
+        lowStockProducerUnderTest.flush();
+
+        // Verify the results
+        verify(mockKafkaTemplate, times(2)).send(eq("low_stock"), eq("a"), any(LowStockEvent.class));
+    }
+}
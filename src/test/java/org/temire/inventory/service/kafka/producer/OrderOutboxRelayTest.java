@@ -0,0 +1,88 @@
+package org.temire.inventory.service.kafka.producer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.data.model.OutboxOrder;
+import org.temire.inventory.service.data.repositories.OutboxOrderRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderOutboxRelayTest {
+
+    @Mock
+    private OutboxOrderRepository mockOutboxOrderRepository;
+    @Mock
+    private KafkaProducer mockKafkaProducer;
+
+    private OrderOutboxRelay orderOutboxRelayUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        orderOutboxRelayUnderTest = new OrderOutboxRelay(mockOutboxOrderRepository, mockKafkaProducer);
+        orderOutboxRelayUnderTest.enabled = true;
+        orderOutboxRelayUnderTest.batchSize = 10;
+        orderOutboxRelayUnderTest.lease = Duration.ofMillis(200);
+        orderOutboxRelayUnderTest.retryDelay = Duration.ofSeconds(1);
+        orderOutboxRelayUnderTest.maxRetryDelay = Duration.ofMinutes(5);
+    }
+
+    @Test
+    void testRelay_DeletesAcknowledgedAndRetriesTheRest() {
+        // Setup
+        final OutboxOrder acked = entry("o-1");
+        final OutboxOrder rejected = entry("o-2");
+        final OutboxOrder stalled = entry("o-3");
+        when(mockOutboxOrderRepository.claimBatch(anyString(), anyInt(), any(Duration.class)))
+                .thenReturn(List.of(acked, rejected, stalled));
+        when(mockKafkaProducer.sendMessage(acked.getOrder())).thenReturn(CompletableFuture.completedFuture(null));
+        when(mockKafkaProducer.sendMessage(rejected.getOrder()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("not leader")));
+        when(mockKafkaProducer.sendMessage(stalled.getOrder())).thenReturn(new CompletableFuture<>());
+
+        // Run the test
+        orderOutboxRelayUnderTest.relay();
+
+        // Verify the results
+        verify(mockOutboxOrderRepository).deleteClaimed("relay:claim", List.of("o-1"));
+        verify(mockOutboxOrderRepository).scheduleRetry(List.of(rejected, stalled), Duration.ofSeconds(1), Duration.ofMinutes(5));
+    }
+
+    @Test
+    void testRelay_NothingAcknowledged() {
+        // Setup
+        final OutboxOrder rejected = entry("o-1");
+        when(mockOutboxOrderRepository.claimBatch(anyString(), anyInt(), any(Duration.class))).thenReturn(List.of(rejected));
+        when(mockKafkaProducer.sendMessage(rejected.getOrder()))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("not leader")));
+
+        // Run the test
+        orderOutboxRelayUnderTest.relay();
+
+        // Verify the results
+        verify(mockOutboxOrderRepository, never()).deleteClaimed(anyString(), any());
+        verify(mockOutboxOrderRepository).scheduleRetry(eq(List.of(rejected)), any(Duration.class), any(Duration.class));
+    }
+
+    private static OutboxOrder entry(String order_id) {
+        final Order order = new Order();
+        order.setOrder_id(order_id);
+        final OutboxOrder entry = new OutboxOrder(order);
+        entry.setClaim_id("relay:claim");
+        return entry;
+    }
+}
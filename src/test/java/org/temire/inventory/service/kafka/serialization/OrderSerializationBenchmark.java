@@ -0,0 +1,61 @@
+package org.temire.inventory.service.kafka.serialization;
+
+import org.temire.inventory.service.data.dto.OrderProduct;
+import org.temire.inventory.service.data.model.Order;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compares payload size and encode/decode cost of the binary order format against Jackson JSON.
+ *
+ * Run with: mvn -q test-compile exec:java -Dexec.mainClass=org.temire.inventory.service.kafka.serialization.OrderSerializationBenchmark -Dexec.classpathScope=test
+ */
+public class OrderSerializationBenchmark {
+
+    private static final int WARMUP = 200_000;
+    private static final int ITERATIONS = 500_000;
+
+    public static void main(String[] args) {
+        OrderSerializer binary = new OrderSerializer();
+        binary.configure(Map.of(), false);
+        OrderSerializer json = new OrderSerializer();
+        json.configure(Map.of(OrderSerializer.FORMAT_CONFIG, "json"), false);
+        OrderDeserializer deserializer = new OrderDeserializer();
+
+        System.out.printf("%-6s %-7s %10s %12s %12s%n", "items", "format", "bytes", "encode ns", "decode ns");
+        for (int items : new int[]{1, 5, 20}) {
+            Order order = sampleOrder(items);
+            report(items, "binary", binary, deserializer, order);
+            report(items, "json", json, deserializer, order);
+        }
+    }
+
+    private static void report(int items, String name, OrderSerializer serializer, OrderDeserializer deserializer, Order order) {
+        byte[] payload = serializer.serialize("make_order", order);
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += serializer.serialize("make_order", order).length;
+            sink += deserializer.deserialize("make_order", payload).getItems().size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) sink += serializer.serialize("make_order", order).length;
+        long encodeNs = (System.nanoTime() - start) / ITERATIONS;
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) sink += deserializer.deserialize("make_order", payload).getItems().size();
+        long decodeNs = (System.nanoTime() - start) / ITERATIONS;
+        System.out.printf("%-6d %-7s %10d %12d %12d%s%n", items, name, payload.length, encodeNs, decodeNs, sink == 42 ? " " : "");
+    }
+
+    static Order sampleOrder(int itemCount) {
+        List<OrderProduct> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(new OrderProduct("63f1c2a9e4b0d5" + String.format("%010d", i), "Product " + i,
+                    "Short description of product " + i, 19.99 + i, 1 + i % 3));
+        }
+        return new Order("63f1c2a9e4b0d5a1b2c3d4e5", items, 123.45, LocalDate.of(2023, 2, 19), null,
+                "12 Marina Road, Lagos", "Ada Obi", "ada.obi@example.com", "+2348000000000", false);
+    }
+}
@@ -0,0 +1,87 @@
+package org.temire.inventory.service.kafka.serialization;
+
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.temire.inventory.service.data.dto.OrderProduct;
+import org.temire.inventory.service.data.model.Order;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrderSerializerTest {
+
+    private OrderSerializer serializerUnderTest;
+    private OrderDeserializer deserializerUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        serializerUnderTest = new OrderSerializer();
+        serializerUnderTest.configure(Map.of(), false);
+        deserializerUnderTest = new OrderDeserializer();
+    }
+
+    @Test
+    void testBinaryRoundTrip() {
+        // Setup
+        final Order order = new Order("order_id",
+                List.of(new OrderProduct("product_id", "name", "déscription", 12.5, 3),
+                        new OrderProduct("other_id", null, null, 0.0, null)),
+                37.5, LocalDate.of(2020, 1, 1), null, "delivery_address", "customer_name", "customer_email",
+                "customer_phone", true);
+
+        // Run the test
+        final byte[] payload = serializerUnderTest.serialize("make_order", order);
+        final Order result = deserializerUnderTest.deserialize("make_order", payload);
+
+        // Verify the results
+        assertThat(payload[0]).isEqualTo(OrderBinaryCodec.MAGIC);
+        assertThat(payload[1]).isEqualTo(OrderBinaryCodec.VERSION_1);
+        assertThat(result).isEqualTo(order);
+    }
+
+    @Test
+    void testBinaryRoundTrip_NullItems() {
+        // Setup
+        final Order order = new Order(null, null, 0.0, null, null, null, null, null, null, false);
+
+        // Run the test
+        final Order result = deserializerUnderTest.deserialize("make_order", serializerUnderTest.serialize("make_order", order));
+
+        // Verify the results
+        assertThat(result).isEqualTo(order);
+    }
+
+    @Test
+    void testJsonFormat() {
+        // Setup
+        serializerUnderTest.configure(Map.of(OrderSerializer.FORMAT_CONFIG, "json"), false);
+        final Order order = new Order("order_id", List.of(new OrderProduct("product_id", "name", "description", 1.0, 1)),
+                1.0, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 2), "delivery_address", "customer_name",
+                "customer_email", "customer_phone", false);
+
+        // Run the test
+        final byte[] payload = serializerUnderTest.serialize("make_order", order);
+        final Order result = deserializerUnderTest.deserialize("make_order", payload);
+
+        // Verify the results
+        assertThat(new String(payload, StandardCharsets.UTF_8)).contains("\"order_date\":\"2020-01-01\"");
+        assertThat(result).isEqualTo(order);
+    }
+
+    @Test
+    void testDeserialize_UnsupportedVersion() {
+        // Setup
+        final byte[] payload = serializerUnderTest.serialize("make_order", new Order());
+        payload[1] = 0x7F;
+
+        // Run the test
+        assertThatThrownBy(() -> deserializerUnderTest.deserialize("make_order", payload))
+                .isInstanceOf(SerializationException.class);
+    }
+}
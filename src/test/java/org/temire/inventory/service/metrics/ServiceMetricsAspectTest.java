@@ -0,0 +1,87 @@
+package org.temire.inventory.service.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.http.HttpStatus;
+import org.temire.inventory.service.CustomException;
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+import org.temire.inventory.service.services.ProductService;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ServiceMetricsAspectTest {
+
+    @Mock
+    private ProductService mockProductService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ProductService productServiceUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        final AspectJProxyFactory factory = new AspectJProxyFactory(mockProductService);
+        factory.addAspect(new ServiceMetricsAspect(meterRegistry));
+        productServiceUnderTest = factory.getProxy();
+    }
+
+    @Test
+    void testTime_TagsResponseCode() {
+        // Setup
+        when(mockProductService.updatePrice("product_id", 1.0)).thenReturn(
+                new GenericResponseDTO("99", HttpStatus.EXPECTATION_FAILED, "No Product found with the ID"));
+
+        // Run the test
+        productServiceUnderTest.updatePrice("product_id", 1.0);
+
+        // Verify the results
+        assertThat(meterRegistry.get(ServiceMetricsAspect.METRIC)
+                .tags("method", "updatePrice", "code", "99", "exception", "none").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testTime_ThrowsException() {
+        // Setup
+        doThrow(new CustomException("The purchase quantity cannot be negative", HttpStatus.BAD_REQUEST))
+                .when(mockProductService).updateProductQuantity("product_id", -1);
+
+        // Run the test
+        assertThatThrownBy(() -> productServiceUnderTest.updateProductQuantity("product_id", -1))
+                .isInstanceOf(CustomException.class);
+
+        // Verify the results
+        assertThat(meterRegistry.get(ServiceMetricsAspect.METRIC)
+                .tags("method", "updateProductQuantity", "code", "error", "exception", "CustomException").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testTime_WaitsForAsyncResult() {
+        // Setup
+        final Order order = new Order();
+        final CompletableFuture<GenericResponseDTO> pending = new CompletableFuture<>();
+        when(mockProductService.makeOrderAsync(order)).thenReturn(pending);
+
+        // Run the test
+        final CompletableFuture<GenericResponseDTO> result = productServiceUnderTest.makeOrderAsync(order);
+        assertThat(meterRegistry.find(ServiceMetricsAspect.METRIC).timers()).isEmpty();
+        pending.complete(new GenericResponseDTO("00", HttpStatus.OK, "Order accepted successfully!", order));
+
+        // Verify the results
+        assertThat(result.join().getCode()).isEqualTo("00");
+        assertThat(meterRegistry.get(ServiceMetricsAspect.METRIC)
+                .tags("method", "makeOrderAsync", "code", "00").timer().count()).isEqualTo(1);
+    }
+}
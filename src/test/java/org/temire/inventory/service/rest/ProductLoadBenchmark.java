@@ -0,0 +1,89 @@
+package org.temire.inventory.service.rest;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import io.netty.channel.ChannelOption;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Drives one /products route with a fixed number of concurrent keep-alive connections and reports
+ * throughput and latency. Start the service twice against the same seeded database, once as it is
+ * (servlet MVC) and once with --spring.main.web-application-type=reactive --server.port=8081, then
+ * point this at each in turn. 10k connections need a raised open-file limit (ulimit -n) on both sides.
+ *
+ * Run with: mvn -q test-compile exec:java -Dexec.mainClass=org.temire.inventory.service.rest.ProductLoadBenchmark -Dexec.classpathScope=test -Dexec.args="http://localhost:8080 /products/id/some-id 10000 30"
+ */
+public class ProductLoadBenchmark {
+
+    private static final int MAX_LATENCY_MS = 10_000;
+
+    public static void main(String[] args) {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        String path = args.length > 1 ? args[1] : "/products/all?size=20&count=false";
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        Duration duration = Duration.ofSeconds(args.length > 3 ? Long.parseLong(args[3]) : 30);
+
+        // Without a logback config the test classpath logs every connection event at DEBUG.
+        ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.INFO);
+
+        ConnectionProvider pool = ConnectionProvider.builder("load-test")
+                .maxConnections(connections)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        HttpClient client = HttpClient.create(pool)
+                .baseUrl(baseUrl)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 10_000)
+                .responseTimeout(Duration.ofMillis(MAX_LATENCY_MS));
+
+        LongAdder ok = new LongAdder();
+        LongAdder failed = new LongAdder();
+        AtomicLongArray latencies = new AtomicLongArray(MAX_LATENCY_MS + 1);
+        long start = System.nanoTime();
+        long deadline = start + duration.toNanos();
+
+        Flux.range(0, connections)
+                .flatMap(connection -> Mono.defer(() -> {
+                    long sent = System.nanoTime();
+                    return client.get().uri(path)
+                            .responseSingle((response, body) -> body.then(Mono.just(response.status().code())))
+                            .doOnNext(status -> {
+                                if (status < 400) ok.increment();
+                                else failed.increment();
+                                int millis = (int) Math.min(MAX_LATENCY_MS, (System.nanoTime() - sent) / 1_000_000);
+                                latencies.incrementAndGet(millis);
+                            })
+                            .onErrorResume(ex -> {
+                                failed.increment();
+                                return Mono.empty();
+                            });
+                }).repeat(() -> System.nanoTime() < deadline), connections)
+                .blockLast();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%s%s with %d connections for %.1fs%n", baseUrl, path, connections, seconds);
+        System.out.printf("requests %d ok, %d failed, %.0f req/s%n", ok.sum(), failed.sum(), ok.sum() / seconds);
+        System.out.printf("latency ms p50 %d, p90 %d, p99 %d, max %d%n", percentile(latencies, 0.50),
+                percentile(latencies, 0.90), percentile(latencies, 0.99), percentile(latencies, 1.0));
+        pool.dispose();
+    }
+
+    private static int percentile(AtomicLongArray latencies, double fraction) {
+        long total = 0;
+        for (int i = 0; i < latencies.length(); i++) total += latencies.get(i);
+        long target = (long) Math.ceil(total * fraction);
+        long seen = 0;
+        for (int i = 0; i < latencies.length(); i++) {
+            seen += latencies.get(i);
+            if (seen >= target && seen > 0) return i;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,152 @@
+package org.temire.inventory.service.rest.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.temire.inventory.service.data.model.Product;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+import org.temire.inventory.service.services.ProductService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class ProductControllerTest {
+
+    @Mock
+    private ProductService mockProductService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        final ProductController productController = new ProductController();
+        productController.productService = mockProductService;
+        productController.objectMapper = new ObjectMapper();
+        mockMvc = MockMvcBuilders.standaloneSetup(productController).build();
+    }
+
+    @Test
+    void testExport() throws Exception {
+        // Setup
+        when(mockProductService.streamCatalog(5)).thenReturn(Stream.of(
+                new Product("a", "name", "description", 1.0, 5), new Product("b", "name", "description", 2.0, 9)));
+
+        // Run the test
+        final MvcResult started = mockMvc.perform(get("/products/export").param("minQuantity", "5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Verify the results
+        assertThat(started.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofHours(1).toMillis());
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(
+                        "{\"product_id\":\"a\",\"name\":\"name\",\"description\":\"description\",\"price\":1.0,\"quantity\":5}\n"
+                                + "{\"product_id\":\"b\",\"name\":\"name\",\"description\":\"description\",\"price\":2.0,\"quantity\":9}\n"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "[{\"product_id\":\"a\",\"quantity\":1},{\"product_id\":\"b\",\"quantity\":2}]",
+            "{\"product_id\":\"a\",\"quantity\":1}\n{\"product_id\":\"b\",\"quantity\":2}\n"})
+    void testBulk(String body) throws Exception {
+        // Setup
+        final List<String> ingested = new ArrayList<>();
+        when(mockProductService.ingest(any())).thenAnswer(invocation -> {
+            Iterator<Product> products = invocation.getArgument(0);
+            products.forEachRemaining(product -> ingested.add(product.getProduct_id()));
+            return new GenericResponseDTO("00", HttpStatus.OK, "Products ingested successfully!", null);
+        });
+
+        // Run the test
+        mockMvc.perform(post("/products/bulk").contentType("application/x-ndjson").content(body))
+                .andExpect(status().isOk());
+
+        // Verify the results
+        assertThat(ingested).isEqualTo(List.of("a", "b"));
+    }
+
+    @Test
+    void testUpdate_IgnoresReservedFromTheClient() throws Exception {
+        // Setup
+        when(mockProductService.update(any(Product.class)))
+                .thenReturn(new GenericResponseDTO("00", HttpStatus.OK, "Product updated Successfully!", null));
+
+        // Run the test
+        mockMvc.perform(put("/products/update").contentType("application/json")
+                        .content("{\"product_id\":\"a\",\"price\":1.0,\"quantity\":5,\"reserved\":40}"))
+                .andExpect(status().isOk());
+
+        // Verify the results
+        verify(mockProductService).update(new Product("a", null, null, 1.0, 5));
+    }
+
+    @Test
+    void testId_ETag() throws Exception {
+        // Setup
+        when(mockProductService.findById("a")).thenReturn(Optional.of(new Product("a", "name", "description", 1.0, 5, null, null, 3L)));
+
+        // Run the test
+        mockMvc.perform(get("/products/id/a"))
+                // Verify the results
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    void testId_NotModified() throws Exception {
+        // Setup
+        when(mockProductService.findVersion("a")).thenReturn(Optional.of(3L));
+
+        // Run the test
+        mockMvc.perform(get("/products/id/a").header("If-None-Match", "\"2\", W/\"3\""))
+                // Verify the results
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""))
+                .andExpect(content().string(""));
+        verify(mockProductService, never()).findById("a");
+    }
+
+    @Test
+    void testId_Modified() throws Exception {
+        // Setup
+        when(mockProductService.findVersion("a")).thenReturn(Optional.of(4L));
+        when(mockProductService.findById("a")).thenReturn(Optional.of(new Product("a", "name", "description", 1.0, 5, null, null, 4L)));
+
+        // Run the test
+        mockMvc.perform(get("/products/id/a").header("If-None-Match", "\"3\""))
+                // Verify the results
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"4\""));
+    }
+}
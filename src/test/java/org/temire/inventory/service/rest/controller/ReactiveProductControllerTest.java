@@ -0,0 +1,103 @@
+package org.temire.inventory.service.rest.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.web.ReactivePageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.temire.inventory.service.cache.ProductCache;
+import org.temire.inventory.service.data.model.Product;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+import org.temire.inventory.service.services.ProductService;
+import org.temire.inventory.service.services.ReactiveProductService;
+import org.temire.inventory.service.services.StockAllocationService;
+import org.temire.inventory.service.services.StockHoldService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveProductControllerTest {
+
+    @Mock
+    private ReactiveProductService mockReactiveProductService;
+    @Mock
+    private ProductService mockProductService;
+    @Mock
+    private StockHoldService mockStockHoldService;
+    @Mock
+    private StockAllocationService mockStockAllocationService;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        final ReactiveProductController reactiveProductController = new ReactiveProductController(mockReactiveProductService,
+                mockProductService, mockStockHoldService, mockStockAllocationService, new ProductCache(100, Duration.ofMinutes(1)));
+        webTestClient = WebTestClient.bindToController(reactiveProductController)
+                .argumentResolvers(configurer -> configurer.addCustomResolver(new ReactivePageableHandlerMethodArgumentResolver()))
+                .build();
+    }
+
+    @Test
+    void testAll() {
+        // Setup
+        when(mockReactiveProductService.findAllSlice(PageRequest.of(1, 5))).thenReturn(
+                Mono.just(new GenericResponseDTO("00", HttpStatus.OK, "Search Completed", null)));
+
+        // Run the test
+        webTestClient.get().uri("/products/all?page=1&size=5&count=false").exchange()
+                // Verify the results
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.code").isEqualTo("00");
+    }
+
+    @Test
+    void testId_NotFound() {
+        // Setup
+        when(mockReactiveProductService.findById("product_id")).thenReturn(Mono.empty());
+
+        // Run the test
+        webTestClient.get().uri("/products/id/product_id").exchange()
+                // Verify the results
+                .expectStatus().isNotFound()
+                .expectBody().jsonPath("$.code").isEqualTo("99");
+    }
+
+    @Test
+    void testId_NotModified() {
+        // Setup
+        when(mockReactiveProductService.findVersion("product_id")).thenReturn(Mono.just(7L));
+
+        // Run the test
+        webTestClient.get().uri("/products/id/product_id").header("If-None-Match", "\"7\"").exchange()
+                // Verify the results
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("ETag", "\"7\"")
+                .expectBody().isEmpty();
+        verify(mockReactiveProductService, never()).findById("product_id");
+    }
+
+    @Test
+    void testExport() {
+        // Setup
+        when(mockReactiveProductService.streamCatalog(null)).thenReturn(Flux.just(
+                new Product("a", "name", "description", 1.0, 5), new Product("b", "name", "description", 2.0, 9)));
+
+        // Run the test
+        webTestClient.get().uri("/products/export").exchange()
+                // Verify the results
+                .expectStatus().isOk()
+                .expectHeader().contentType("application/x-ndjson")
+                .expectBodyList(Product.class).hasSize(2);
+    }
+}
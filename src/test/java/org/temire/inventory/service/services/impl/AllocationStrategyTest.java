@@ -0,0 +1,88 @@
+package org.temire.inventory.service.services.impl;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.temire.inventory.service.CustomException;
+import org.temire.inventory.service.data.dto.LocationAllocation;
+import org.temire.inventory.service.data.model.LocationStock;
+import org.temire.inventory.service.data.model.StockLocation;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+class AllocationStrategyTest {
+
+    private static final List<LocationStock> STOCK = List.of(
+            new LocationStock("a@lagos", "a", "lagos", 4),
+            new LocationStock("a@abuja", "a", "abuja", 10),
+            new LocationStock("a@kano", "a", "kano", 6));
+
+    // Lagos, Abuja and Kano.
+    private static final Map<String, StockLocation> LOCATIONS = Map.of(
+            "lagos", new StockLocation("lagos", "Lagos", 6.5244, 3.3792),
+            "abuja", new StockLocation("abuja", "Abuja", 9.0765, 7.3986),
+            "kano", new StockLocation("kano", "Kano", 12.0022, 8.5920));
+
+    @Test
+    void testSplit() {
+        // Run the test
+        final List<LocationAllocation> result = new SplitAllocationStrategy().allocate("a", 13, STOCK,
+                new AllocationContext(null, null, Map.of()));
+
+        // Verify the results
+        assertThat(result).extracting(LocationAllocation::getLocation_id, LocationAllocation::getQuantity)
+                .containsExactly(tuple("abuja", 10), tuple("kano", 3));
+    }
+
+    @Test
+    void testSplit_NotEnoughAnywhere() {
+        // Run the test
+        final List<LocationAllocation> result = new SplitAllocationStrategy().allocate("a", 21, STOCK,
+                new AllocationContext(null, null, Map.of()));
+
+        // Verify the results
+        assertThat(result).isEmpty();
+    }
+
+    @Test
+    void testMostStocked() {
+        // Run the test
+        final List<LocationAllocation> covered = new MostStockedLocationStrategy().allocate("a", 8, STOCK,
+                new AllocationContext(null, null, Map.of()));
+        final List<LocationAllocation> tooMany = new MostStockedLocationStrategy().allocate("a", 11, STOCK,
+                new AllocationContext(null, null, Map.of()));
+
+        // Verify the results
+        assertThat(covered).extracting(LocationAllocation::getLocation_id, LocationAllocation::getQuantity)
+                .containsExactly(tuple("abuja", 8));
+        assertThat(tooMany).isEmpty();
+    }
+
+    @Test
+    void testNearest() {
+        // Setup
+        // Ibadan: Lagos is closest but only holds 4.
+        final AllocationContext context = new AllocationContext(7.3775, 3.9470, LOCATIONS);
+
+        // Run the test
+        final List<LocationAllocation> small = new NearestLocationStrategy().allocate("a", 3, STOCK, context);
+        final List<LocationAllocation> large = new NearestLocationStrategy().allocate("a", 5, STOCK, context);
+
+        // Verify the results
+        assertThat(small).extracting(LocationAllocation::getLocation_id).containsExactly("lagos");
+        assertThat(large).extracting(LocationAllocation::getLocation_id).containsExactly("abuja");
+    }
+
+    @Test
+    void testNearest_NoOrigin() {
+        // Run the test
+        assertThatThrownBy(() -> new NearestLocationStrategy().allocate("a", 3, STOCK, new AllocationContext(null, null, LOCATIONS)))
+                // Verify the results
+                .isInstanceOf(CustomException.class)
+                .extracting("httpStatus").isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+}
@@ -0,0 +1,160 @@
+package org.temire.inventory.service.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.temire.inventory.service.cache.ProductCache;
+import org.temire.inventory.service.data.model.Product;
+import org.temire.inventory.service.data.repositories.ProductRepository;
+import org.temire.inventory.service.kafka.producer.LowStockProducer;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HotStockLedgerTest {
+
+    @Mock
+    private ProductRepository mockProductRepository;
+    @Mock
+    private LowStockProducer mockLowStockProducer;
+
+    @TempDir
+    Path journalDir;
+
+    private HotStockLedger ledger(String journal) {
+        return new HotStockLedger(mockProductRepository, new ProductCache(100, Duration.ofMinutes(1)), mockLowStockProducer,
+                new SimpleMeterRegistry(), true, new String[]{"hot"}, 10, journalDir.resolve(journal).toString());
+    }
+
+    private static Product stocked(int quantity, Integer escrowed) {
+        return new Product("hot", "name", "description", 1.0, quantity, 5, null, escrowed, 1L);
+    }
+
+    @Test
+    void testTake() {
+        // Setup
+        when(mockProductRepository.findById("hot")).thenReturn(Optional.of(stocked(15, null)));
+        when(mockProductRepository.escrow("hot", 10)).thenReturn(true);
+        final HotStockLedger ledger = ledger("take.journal");
+        ledger.open();
+
+        // Run the test
+        boolean allTaken = true;
+        for (int i = 0; i < 10; i++) allTaken &= ledger.take("hot", 1);
+
+        // Verify the results
+        assertThat(ledger.isHot("hot")).isTrue();
+        assertThat(ledger.isHot("cold")).isFalse();
+        assertThat(allTaken).isTrue();
+        assertThat(ledger.held(0)).isEqualTo(0);
+        assertThat(ledger.sold(0)).isEqualTo(10);
+        verify(mockProductRepository, times(1)).escrow("hot", 10);
+    }
+
+    @Test
+    void testTake_InsufficientStock() {
+        // Setup
+        when(mockProductRepository.findById("hot")).thenReturn(Optional.of(stocked(7, 5)));
+        when(mockProductRepository.escrow("hot", 2)).thenReturn(true);
+        final HotStockLedger ledger = ledger("short.journal");
+        ledger.open();
+
+        // Run the test
+        final boolean taken = ledger.take("hot", 3);
+
+        // Verify the results
+        assertThat(taken).isFalse();
+        assertThat(ledger.held(0)).isEqualTo(2);
+    }
+
+    @Test
+    void testFlush_WritesSalesBehindInOneUpdate() {
+        // Setup
+        when(mockProductRepository.findById("hot")).thenReturn(Optional.of(stocked(15, null)));
+        when(mockProductRepository.escrow("hot", 10)).thenReturn(true);
+        final Product settled = stocked(11, 6);
+        when(mockProductRepository.settle("hot", 4, 0)).thenReturn(Optional.of(settled));
+        final HotStockLedger ledger = ledger("flush.journal");
+        ledger.open();
+        for (int i = 0; i < 4; i++) ledger.take("hot", 1);
+
+        // Run the test
+        ledger.flush();
+
+        // Verify the results
+        assertThat(ledger.sold(0)).isEqualTo(0);
+        verify(mockLowStockProducer).onDecrement(settled, 4);
+    }
+
+    @Test
+    void testTakeAll_ShortColdLineGivesTheHotLinesBack() {
+        // Setup
+        when(mockProductRepository.findById("hot")).thenReturn(Optional.of(stocked(15, null)));
+        when(mockProductRepository.escrow("hot", 10)).thenReturn(true);
+        final HotStockLedger ledger = ledger("take-all.journal");
+        ledger.open();
+        final Map<String, Integer> quantities = new LinkedHashMap<>();
+        quantities.put("hot", 3);
+        quantities.put("cold", 1);
+
+        // Run the test
+        final Optional<String> result = ledger.takeAll(quantities, (hot, cold) -> {
+            assertThat(hot).containsOnlyKeys("hot");
+            assertThat(cold).containsOnlyKeys("cold");
+            return Optional.of("cold");
+        });
+
+        // Verify the results
+        assertThat(result).contains("cold");
+        assertThat(ledger.held(0)).isEqualTo(10);
+        assertThat(ledger.sold(0)).isEqualTo(0);
+    }
+
+    @Test
+    void testOpen_SettlesWhatThePreviousRunHeld() {
+        // Setup
+        when(mockProductRepository.findById("hot")).thenReturn(Optional.of(stocked(15, null)));
+        when(mockProductRepository.escrow("hot", 10)).thenReturn(true);
+        final HotStockLedger crashed = ledger("crash.journal");
+        crashed.open();
+        crashed.take("hot", 4);
+
+        // Run the test
+        ledger("crash.journal").open();
+
+        // Verify the results
+        verify(mockProductRepository).settle("hot", 4, 6);
+    }
+
+    @Test
+    void testClose() {
+        // Setup
+        when(mockProductRepository.findById("hot")).thenReturn(Optional.of(stocked(15, null)));
+        when(mockProductRepository.escrow("hot", 10)).thenReturn(true);
+        final HotStockLedger ledger = ledger("close.journal");
+        ledger.open();
+        ledger.take("hot", 1);
+
+        // Run the test
+        ledger.close();
+        ledger("close.journal").open();
+
+        // Verify the results
+        assertThat(ledger.isHot("hot")).isFalse();
+        verify(mockProductRepository, times(1)).settle("hot", 1, 9);
+        verify(mockProductRepository, never()).settle("hot", 0, 0);
+    }
+}
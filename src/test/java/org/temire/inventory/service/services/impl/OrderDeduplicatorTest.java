@@ -0,0 +1,99 @@
+package org.temire.inventory.service.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.temire.inventory.service.data.model.OrderReceipt;
+import org.temire.inventory.service.data.repositories.OrderReceiptRepository;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OrderDeduplicatorTest {
+
+    @Mock
+    private OrderReceiptRepository mockOrderReceiptRepository;
+
+    private OrderDeduplicator orderDeduplicatorUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        orderDeduplicatorUnderTest = new OrderDeduplicator(mockOrderReceiptRepository, new SimpleMeterRegistry(), true,
+                Duration.ofHours(24), Duration.ofSeconds(30));
+    }
+
+    @Test
+    void testClaim_FreshKeySkipsTheLookup() {
+        // Setup
+        when(mockOrderReceiptRepository.claim(eq("key"), any(Instant.class), any(Instant.class))).thenReturn(true);
+
+        // Run the test
+        final Optional<GenericResponseDTO> result = orderDeduplicatorUnderTest.claim("key");
+
+        // Verify the results
+        assertThat(result).isEmpty();
+        verify(mockOrderReceiptRepository, never()).findById(any());
+    }
+
+    @Test
+    void testClaim_ConcurrentRequestGetsAConflict() {
+        // Setup
+        when(mockOrderReceiptRepository.claim(eq("key"), any(Instant.class), any(Instant.class))).thenReturn(false);
+        when(mockOrderReceiptRepository.findById("key")).thenReturn(Optional.of(
+                new OrderReceipt("key", null, 0, null, null, Instant.now(), Instant.now().plusSeconds(30))));
+
+        // Run the test
+        final Optional<GenericResponseDTO> result = orderDeduplicatorUnderTest.claim("key");
+
+        // Verify the results
+        assertThat(result).hasValueSatisfying(response -> {
+            assertThat(response.getCode()).isEqualTo("99");
+            assertThat(response.getStatus()).isEqualTo(HttpStatus.CONFLICT);
+        });
+    }
+
+    @Test
+    void testClaim_RetryAfterAcceptanceIsReplayed() {
+        // Setup
+        when(mockOrderReceiptRepository.claim(eq("key"), any(Instant.class), any(Instant.class))).thenReturn(true, false);
+        final GenericResponseDTO accepted = new GenericResponseDTO("00", HttpStatus.OK, "Order accepted successfully!", null);
+        orderDeduplicatorUnderTest.claim("key");
+        orderDeduplicatorUnderTest.remember("key", accepted);
+        when(mockOrderReceiptRepository.findById("key")).thenReturn(Optional.of(
+                new OrderReceipt("key", "00", 200, "Order accepted successfully!", null, Instant.now(), Instant.now().plusSeconds(60))));
+
+        // Run the test
+        final Optional<GenericResponseDTO> result = orderDeduplicatorUnderTest.claim("key");
+
+        // Verify the results
+        assertThat(result).hasValueSatisfying(response -> assertThat(response.getMessage()).isEqualTo("Order accepted successfully!"));
+        verify(mockOrderReceiptRepository).complete(any(OrderReceipt.class));
+    }
+
+    @Test
+    void testRemember_FailedOrderReleasesTheKey() {
+        // Setup
+        final GenericResponseDTO failed = new GenericResponseDTO("99", HttpStatus.EXPECTATION_FAILED, "Insufficient stock", null);
+
+        // Run the test
+        orderDeduplicatorUnderTest.remember("key", failed);
+
+        // Verify the results
+        verify(mockOrderReceiptRepository).release("key");
+        verify(mockOrderReceiptRepository, never()).complete(any());
+    }
+}
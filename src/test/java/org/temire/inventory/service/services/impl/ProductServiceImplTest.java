@@ -1,31 +1,52 @@
 package org.temire.inventory.service.services.impl;
 
+import org.bson.Document;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.temire.inventory.service.CustomException;
+import org.temire.inventory.service.cache.ProductAvailabilityIndex;
+import org.temire.inventory.service.cache.ProductCache;
+import org.temire.inventory.service.data.ProductFields;
+import org.temire.inventory.service.data.dto.CheckedProduct;
+import org.temire.inventory.service.data.dto.IngestChunkResult;
 import org.temire.inventory.service.data.dto.OrderProduct;
+import org.temire.inventory.service.data.dto.OrderResult;
+import org.temire.inventory.service.data.dto.ProductStock;
 import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.data.model.OutboxOrder;
 import org.temire.inventory.service.data.model.Product;
+import org.temire.inventory.service.data.repositories.OutboxOrderRepository;
 import org.temire.inventory.service.data.repositories.ProductRepository;
 import org.temire.inventory.service.kafka.producer.KafkaProducer;
+import org.temire.inventory.service.kafka.producer.LowStockProducer;
 import org.temire.inventory.service.rest.response.GenericResponseDTO;
 
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -36,57 +57,113 @@ class ProductServiceImplTest {
     private ProductRepository mockProductRepository;
     @Mock
     private KafkaProducer mockKafkaProducer;
+    @Mock
+    private OutboxOrderRepository mockOutboxOrderRepository;
+    @Mock
+    private OrderDeduplicator mockOrderDeduplicator;
+    @Mock
+    private LowStockProducer mockLowStockProducer;
+    @Mock
+    private HotStockLedger mockHotStockLedger;
 
+    private ProductCache productCache;
+    private ProductAvailabilityIndex productAvailabilityIndex;
     private ProductServiceImpl productServiceImplUnderTest;
 
     @BeforeEach
     void setUp() {
-        productServiceImplUnderTest = new ProductServiceImpl(mockProductRepository, mockKafkaProducer);
+        productCache = new ProductCache(100, Duration.ofMinutes(1));
+        productAvailabilityIndex = new ProductAvailabilityIndex();
+        productServiceImplUnderTest = new ProductServiceImpl(mockProductRepository, mockKafkaProducer,
+                productCache, productAvailabilityIndex, new OrderPricer(mockProductRepository, productCache), mockOrderDeduplicator,
+                mockLowStockProducer, mockHotStockLedger, mockOutboxOrderRepository, false, 2);
     }
 
     @Test
     void testUpdateProductQuantity() {
         // Setup
-        // Configure ProductRepository.findById(...).
+        // Configure ProductRepository.decrementQuantity(...).
         final Optional<Product> optionalProduct = Optional.of(new Product("product_id", "name", "description", 0.0, 0));
-        when(mockProductRepository.findById("id")).thenReturn(optionalProduct);
-
-        // Configure ProductRepository.save(...).
-        final Product product = new Product("product_id", "name", "description", 0.0, 0);
-        when(mockProductRepository.save(new Product("product_id", "name", "description", 0.0, 0))).thenReturn(product);
+        when(mockProductRepository.decrementQuantity("id", 0)).thenReturn(optionalProduct);
 
         // Run the test
         productServiceImplUnderTest.updateProductQuantity("id", 0);
 
         // Verify the results
-        verify(mockProductRepository).save(new Product("product_id", "name", "description", 0.0, 0));
+        verify(mockProductRepository).decrementQuantity("id", 0);
+        verify(mockProductRepository, never()).save(any(Product.class));
     }
 
     @Test
-    void testUpdateProductQuantity_ProductRepositoryFindByIdReturnsAbsent() {
+    void testUpdateProductQuantity_ReportsLowStock() {
         // Setup
-        when(mockProductRepository.findById("id")).thenReturn(Optional.empty());
+        final Product product = new Product("id", "name", "description", 1.0, 4, 5, null, null);
+        when(mockProductRepository.decrementQuantity("id", 3)).thenReturn(Optional.of(product));
 
-        // Configure ProductRepository.save(...).
-        final Product product = new Product("product_id", "name", "description", 0.0, 0);
-        when(mockProductRepository.save(new Product("product_id", "name", "description", 0.0, 0))).thenReturn(product);
+        // Run the test
+        productServiceImplUnderTest.updateProductQuantity("id", 3);
+
+        // Verify the results
+        verify(mockLowStockProducer).onDecrement(product, 3);
+    }
+
+    @Test
+    void testUpdateProductQuantity_HotProduct() {
+        // Setup
+        when(mockHotStockLedger.isHot("id")).thenReturn(true);
+        when(mockHotStockLedger.take("id", 3)).thenReturn(false);
+        when(mockProductRepository.existsById("id")).thenReturn(true);
+
+        // Run the test
+        assertThatThrownBy(() -> productServiceImplUnderTest.updateProductQuantity("id", 3))
+                .isInstanceOf(CustomException.class);
+
+        // Verify the results
+        verify(mockProductRepository, never()).decrementQuantity(any(String.class), anyInt());
+    }
+
+    @Test
+    void testUpdateProductQuantity_UnknownHotProduct() {
+        // Setup
+        when(mockHotStockLedger.isHot("id")).thenReturn(true);
+        when(mockHotStockLedger.take("id", 3)).thenReturn(false);
+        when(mockProductRepository.existsById("id")).thenReturn(false);
+
+        // Run the test
+        productServiceImplUnderTest.updateProductQuantity("id", 3);
+
+        // Verify the results
+        verify(mockProductRepository, never()).decrementQuantity(any(String.class), anyInt());
+    }
+
+    @Test
+    void testUpdateProductQuantity_ProductRepositoryFindByIdReturnsAbsent() {
+        // Setup
+        when(mockProductRepository.decrementQuantity("id", 0)).thenReturn(Optional.empty());
+        when(mockProductRepository.existsById("id")).thenReturn(false);
 
         // Run the test
         productServiceImplUnderTest.updateProductQuantity("id", 0);
 
         // Verify the results
-        verify(mockProductRepository).save(new Product("product_id", "name", "description", 0.0, 0));
+        verify(mockProductRepository, never()).save(any(Product.class));
     }
 
     @Test
-    void testUpdateProductQuantity_ProductRepositorySaveThrowsOptimisticLockingFailureException() {
+    void testUpdateProductQuantity_InsufficientStock() {
         // Setup
-        // Configure ProductRepository.findById(...).
-        final Optional<Product> optionalProduct = Optional.of(new Product("product_id", "name", "description", 0.0, 0));
-        when(mockProductRepository.findById("id")).thenReturn(optionalProduct);
+        when(mockProductRepository.decrementQuantity("id", 5)).thenReturn(Optional.empty());
+        when(mockProductRepository.existsById("id")).thenReturn(true);
 
-        when(mockProductRepository.save(new Product("product_id", "name", "description", 0.0, 0)))
-                .thenThrow(OptimisticLockingFailureException.class);
+        // Run the test
+        assertThatThrownBy(() -> productServiceImplUnderTest.updateProductQuantity("id", 5))
+                .isInstanceOf(CustomException.class);
+    }
+
+    @Test
+    void testUpdateProductQuantity_ProductRepositoryThrowsOptimisticLockingFailureException() {
+        // Setup
+        when(mockProductRepository.decrementQuantity("id", 0)).thenThrow(OptimisticLockingFailureException.class);
 
         // Run the test
         assertThatThrownBy(() -> productServiceImplUnderTest.updateProductQuantity("id", 0))
@@ -118,6 +195,122 @@ class ProductServiceImplTest {
         // Verify the results
     }
 
+    @Test
+    void testFindAllByCursor() {
+        // Setup
+        when(mockProductRepository.findPageAfter(null, 3)).thenReturn(List.of(
+                new Product("a", "name", "description", 0.0, 0), new Product("b", "name", "description", 0.0, 0),
+                new Product("c", "name", "description", 0.0, 0)));
+        when(mockProductRepository.findPageAfter("b", 3)).thenReturn(List.of(new Product("c", "name", "description", 0.0, 0)));
+
+        // Run the test
+        final GenericResponseDTO first = productServiceImplUnderTest.findAllByCursor("", 2);
+        final GenericResponseDTO second = productServiceImplUnderTest.findAllByCursor(
+                (String) first.getMetadata().get("next_cursor"), 2);
+
+        // Verify the results
+        assertThat((List<?>) first.getData()).hasSize(2);
+        assertThat(first.getMetadata()).containsEntry("has_next", true);
+        assertThat(second.getData()).isEqualTo(List.of(new Product("c", "name", "description", 0.0, 0)));
+        assertThat(second.getMetadata()).containsEntry("has_next", false).doesNotContainKey("next_cursor");
+    }
+
+    @Test
+    void testFindAllAvailableByCursor() {
+        // Setup
+        when(mockProductRepository.findAvailablePageAfter(0, null, null, 2)).thenReturn(List.of(
+                new Product("a", "name", "description", 0.0, 4), new Product("b", "name", "description", 0.0, 7)));
+        when(mockProductRepository.findAvailablePageAfter(0, 4, "a", 2)).thenReturn(List.of(
+                new Product("b", "name", "description", 0.0, 7)));
+
+        // Run the test
+        final GenericResponseDTO first = productServiceImplUnderTest.findAllAvailableByCursor(null, 1, 0);
+        final GenericResponseDTO second = productServiceImplUnderTest.findAllAvailableByCursor(
+                (String) first.getMetadata().get("next_cursor"), 1, 0);
+
+        // Verify the results
+        assertThat(second.getData()).isEqualTo(List.of(new Product("b", "name", "description", 0.0, 7)));
+    }
+
+    @Test
+    void testFindAllAvailableByCursor_ServedFromAvailabilityIndex() {
+        // Setup
+        productAvailabilityIndex.load(List.of(
+                new Product("a", "name", "description", 0.0, 4), new Product("b", "name", "description", 0.0, 7)).iterator());
+
+        // Run the test
+        final GenericResponseDTO first = productServiceImplUnderTest.findAllAvailableByCursor(null, 1, 0);
+        final GenericResponseDTO second = productServiceImplUnderTest.findAllAvailableByCursor(
+                (String) first.getMetadata().get("next_cursor"), 1, 0);
+
+        // Verify the results
+        assertThat(second.getData()).isEqualTo(List.of(new Product("b", "name", "description", 0.0, 7)));
+        verify(mockProductRepository, never()).findAvailablePageAfter(anyInt(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testFindAllByCursor_WithFields() {
+        // Setup
+        when(mockProductRepository.findPageAfter(eq(null), eq(2), any(ProductFields.class))).thenReturn(List.of(
+                new Document("product_id", "a").append("price", 1.0), new Document("product_id", "b").append("price", 2.0)));
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.findAllByCursor(null, 1, "price");
+
+        // Verify the results
+        assertThat(result.getData()).isEqualTo(List.of(new Document("product_id", "a").append("price", 1.0)));
+        assertThat(result.getMetadata()).containsEntry("has_next", true).containsKey("next_cursor");
+        verify(mockProductRepository, never()).findPageAfter(any(), anyInt());
+    }
+
+    @Test
+    void testFindAll_UnknownField() {
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.findAll(PageRequest.of(0, 1), "name,secret");
+
+        // Verify the results
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(mockProductRepository, never()).findPage(any(), any());
+    }
+
+    @Test
+    void testFindAllAvailableByCursor_WithFieldsFromAvailabilityIndex() {
+        // Setup
+        productAvailabilityIndex.load(List.of(
+                new Product("a", "name", "description", 0.0, 4), new Product("b", "name", "description", 0.0, 7)).iterator());
+
+        // Run the test
+        final GenericResponseDTO first = productServiceImplUnderTest.findAllAvailableByCursor(null, 1, 0, "name");
+        final GenericResponseDTO second = productServiceImplUnderTest.findAllAvailableByCursor(
+                (String) first.getMetadata().get("next_cursor"), 1, 0, "name");
+
+        // Verify the results
+        assertThat(second.getData()).isEqualTo(List.of(
+                new Document("product_id", "b").append("name", "name").append("quantity", 7)));
+    }
+
+    @Test
+    void testFindStock() {
+        // Setup
+        when(mockProductRepository.findStockByIds(List.of("a", "b"))).thenReturn(List.of(new ProductStock("a", 3)));
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.findStock(List.of("a", "b"));
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("00");
+        assertThat(result.getData()).isEqualTo(List.of(new ProductStock("a", 3)));
+    }
+
+    @Test
+    void testFindAllByCursor_InvalidCursor() {
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.findAllByCursor("not a cursor!", 2);
+
+        // Verify the results
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
     @Test
     void testFindById() {
         // Setup
@@ -134,6 +327,37 @@ class ProductServiceImplTest {
         assertThat(result).isEqualTo(expectedResult);
     }
 
+    @Test
+    void testFindById_SecondCallServedFromCache() {
+        // Setup
+        when(mockProductRepository.findById("id"))
+                .thenReturn(Optional.of(new Product("product_id", "name", "description", 0.0, 0)));
+
+        // Run the test
+        productServiceImplUnderTest.findById("id");
+        final Optional<Product> result = productServiceImplUnderTest.findById("id");
+
+        // Verify the results
+        assertThat(result).contains(new Product("product_id", "name", "description", 0.0, 0));
+        verify(mockProductRepository, times(1)).findById("id");
+    }
+
+    @Test
+    void testFindById_RefreshedAfterUpdatePrice() {
+        // Setup
+        when(mockProductRepository.findById("product_id"))
+                .thenAnswer(invocation -> Optional.of(new Product("product_id", "name", "description", 1.0, 0)));
+        when(mockProductRepository.save(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        productServiceImplUnderTest.findById("product_id");
+
+        // Run the test
+        productServiceImplUnderTest.updatePrice("product_id", 2.0);
+        final Optional<Product> result = productServiceImplUnderTest.findById("product_id");
+
+        // Verify the results
+        assertThat(result.map(Product::getPrice)).contains(2.0);
+    }
+
     @Test
     void testFindById_ProductRepositoryReturnsAbsent() {
         // Setup
@@ -239,23 +463,442 @@ class ProductServiceImplTest {
         final GenericResponseDTO result = productServiceImplUnderTest.update(p);
 
         // Verify the results
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void testUpdate_WithoutVersion() {
+        // Setup
+        final Product p = new Product("product_id", "name", "description", 0.0, 0, null, 9, null);
+        when(mockProductRepository.findById("product_id"))
+                .thenReturn(Optional.of(new Product("product_id", "name", "description", 0.0, 3, null, 2, 6L)));
+        when(mockProductRepository.save(any(Product.class))).then(invocation -> invocation.getArgument(0));
+
+        // Run the test
+        productServiceImplUnderTest.update(p);
+
+        // Verify the results
+        verify(mockProductRepository).save(new Product("product_id", "name", "description", 0.0, 0, null, 2, 6L));
+    }
+
+    @Test
+    void testUpdatePrice_RetriesOnVersionConflict() {
+        // Setup
+        when(mockProductRepository.findById("id")).thenReturn(
+                Optional.of(new Product("id", "name", "description", 1.0, 5, null, null, 1L)),
+                Optional.of(new Product("id", "name", "description", 1.0, 4, null, null, 2L)));
+        when(mockProductRepository.save(any(Product.class)))
+                .thenThrow(OptimisticLockingFailureException.class)
+                .then(invocation -> invocation.getArgument(0));
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.updatePrice("id", 2.0);
+
+        // Verify the results
+        assertThat(result.getData()).isEqualTo(new Product("id", "name", "description", 2.0, 4, null, null, 2L));
+    }
+
+    @Test
+    void testFindVersion_FromCache() {
+        // Setup
+        productCache.put(new Product("id", "name", "description", 1.0, 5, null, null, 9L));
+
+        // Run the test
+        final Optional<Long> result = productServiceImplUnderTest.findVersion("id");
+
+        // Verify the results
+        assertThat(result).contains(9L);
+        verify(mockProductRepository, never()).findVersion("id");
     }
 
     @Test
     void testMakeOrder() {
         // Setup
         final Order order = new Order("order_id",
-                List.of(new OrderProduct("product_id", "name", "description", 0.0, 0)), 0.0, LocalDate.of(2020, 1, 1),
+                List.of(new OrderProduct("product_id", "name", "description", 0.0, 1)), 0.0, LocalDate.of(2020, 1, 1),
                 LocalDate.of(2020, 1, 1), "delivery_address", "customer_name", "customer_email", "customer_phone",
                 false);
+        when(mockProductRepository.findAllById(List.of("product_id"))).thenReturn(
+                List.of(new Product("product_id", "name", "description", 0.0, 10)));
+        when(mockKafkaProducer.sendMessage(any(Order.class))).thenReturn(CompletableFuture.completedFuture(null));
 
         // Run the test
         final GenericResponseDTO result = productServiceImplUnderTest.makeOrder(order);
 
         // Verify the results
+        assertThat(result.getCode()).isEqualTo("00");
         verify(mockKafkaProducer).sendMessage(
-                new Order("order_id", List.of(new OrderProduct("product_id", "name", "description", 0.0, 0)), 0.0,
+                new Order("order_id", List.of(new OrderProduct("product_id", "name", "description", 0.0, 1)), 0.0,
                         LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 1), "delivery_address", "customer_name",
                         "customer_email", "customer_phone", false));
     }
+
+    @Test
+    void testMakeOrder_AssignsOrderId() {
+        // Setup
+        final Order order = new Order(null,
+                List.of(new OrderProduct("product_id", "name", "description", 0.0, 1)), 0.0, LocalDate.of(2020, 1, 1),
+                LocalDate.of(2020, 1, 1), "delivery_address", "customer_name", "customer_email", "customer_phone",
+                false);
+        when(mockProductRepository.findAllById(List.of("product_id"))).thenReturn(
+                List.of(new Product("product_id", "name", "description", 0.0, 10)));
+        when(mockKafkaProducer.sendMessage(any(Order.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.makeOrder(order);
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("00");
+        assertThat(order.getOrder_id()).isNotNull();
+        verify(mockKafkaProducer).sendMessage(order);
+    }
+
+    @Test
+    void testMakeOrder_Outbox() {
+        // Setup
+        productServiceImplUnderTest = new ProductServiceImpl(mockProductRepository, mockKafkaProducer,
+                productCache, productAvailabilityIndex, new OrderPricer(mockProductRepository, productCache), mockOrderDeduplicator,
+                mockLowStockProducer, mockHotStockLedger, mockOutboxOrderRepository, true, 2);
+        final Order order = new Order(null,
+                List.of(new OrderProduct("product_id", "name", "description", 0.0, 1)), 0.0, LocalDate.of(2020, 1, 1),
+                LocalDate.of(2020, 1, 1), "delivery_address", "customer_name", "customer_email", "customer_phone",
+                false);
+        when(mockProductRepository.findAllById(List.of("product_id"))).thenReturn(
+                List.of(new Product("product_id", "name", "description", 0.0, 10)));
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.makeOrder(order);
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("00");
+        assertThat(order.getOrder_id()).isNotNull();
+        verify(mockOutboxOrderRepository).insert(any(OutboxOrder.class));
+        verify(mockKafkaProducer, never()).sendMessage(any(Order.class));
+    }
+
+    @Test
+    void testMakeOrder_OutboxDuplicateOrderId() {
+        // Setup
+        productServiceImplUnderTest = new ProductServiceImpl(mockProductRepository, mockKafkaProducer,
+                productCache, productAvailabilityIndex, new OrderPricer(mockProductRepository, productCache), mockOrderDeduplicator,
+                mockLowStockProducer, mockHotStockLedger, mockOutboxOrderRepository, true, 2);
+        final Order order = new Order("order_id",
+                List.of(new OrderProduct("product_id", "name", "description", 0.0, 1)), 0.0, LocalDate.of(2020, 1, 1),
+                LocalDate.of(2020, 1, 1), "delivery_address", "customer_name", "customer_email", "customer_phone",
+                false);
+        when(mockProductRepository.findAllById(List.of("product_id"))).thenReturn(
+                List.of(new Product("product_id", "name", "description", 0.0, 10)));
+        when(mockOutboxOrderRepository.insert(any(OutboxOrder.class))).thenThrow(new DuplicateKeyException("order_id"));
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.makeOrder(order);
+
+        // Verify the results
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void testMakeOrder_KafkaProducerNotAcknowledged() {
+        // Setup
+        final Order order = new Order("order_id",
+                List.of(new OrderProduct("product_id", "name", "description", 0.0, 1)), 0.0, LocalDate.of(2020, 1, 1),
+                LocalDate.of(2020, 1, 1), "delivery_address", "customer_name", "customer_email", "customer_phone",
+                false);
+        when(mockProductRepository.findAllById(List.of("product_id"))).thenReturn(
+                List.of(new Product("product_id", "name", "description", 0.0, 10)));
+        when(mockKafkaProducer.sendMessage(any(Order.class))).thenReturn(CompletableFuture.failedFuture(
+                new CustomException("Too many orders waiting to be sent, try again later", HttpStatus.SERVICE_UNAVAILABLE)));
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.makeOrder(order);
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("99");
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void testMakeOrder_ReplaysPreviousResponse() {
+        // Setup
+        final Order order = new Order("order_id", List.of(new OrderProduct("a", "name", "description", 1.0, 2)), 2.0,
+                LocalDate.of(2020, 1, 1), null, "delivery_address", "customer_name", "customer_email",
+                "customer_phone", false);
+        final GenericResponseDTO previous = new GenericResponseDTO("00", HttpStatus.OK, "Order accepted successfully!", order);
+        when(mockOrderDeduplicator.claim("idempotency_key")).thenReturn(Optional.of(previous));
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.makeOrderAsync(order, "idempotency_key").join();
+
+        // Verify the results
+        assertThat(result).isSameAs(previous);
+        verify(mockProductRepository, never()).findAllById(any());
+        verify(mockKafkaProducer, never()).sendMessage(any(Order.class));
+        verify(mockOrderDeduplicator, never()).remember(any(), any());
+    }
+
+    @Test
+    void testMakeOrder_RemembersResponseUnderOrderId() {
+        // Setup
+        final Order order = new Order("order_id", List.of(new OrderProduct("a", "name", "description", 1.0, 2)), 2.0,
+                LocalDate.of(2020, 1, 1), null, "delivery_address", "customer_name", "customer_email",
+                "customer_phone", false);
+        when(mockProductRepository.findAllById(List.of("a"))).thenReturn(List.of(new Product("a", "name", "description", 1.0, 10)));
+        when(mockKafkaProducer.sendMessage(order)).thenReturn(CompletableFuture.completedFuture(null));
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.makeOrder(order);
+
+        // Verify the results
+        verify(mockOrderDeduplicator).claim("order_id");
+        verify(mockOrderDeduplicator).remember("order_id", result);
+    }
+
+    @Test
+    void testMakeOrder_PriceMismatch() {
+        // Setup
+        final Order order = new Order("order_id",
+                List.of(new OrderProduct("a", "name", "description", 1.0, 2), new OrderProduct("b", "name", "description", 5.0, 1)),
+                7.0, LocalDate.of(2020, 1, 1), null, "delivery_address", "customer_name", "customer_email",
+                "customer_phone", false);
+        productCache.put(new Product("a", "name", "description", 1.5, 10));
+        when(mockProductRepository.findAllById(List.of("b"))).thenReturn(List.of(new Product("b", "name", "description", 5.0, 10)));
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.makeOrder(order);
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("99");
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.CONFLICT);
+        final Order quote = (Order) result.getData();
+        assertThat(quote.getItems()).extracting(OrderProduct::getOrderPrice).containsExactly(1.5, 5.0);
+        assertThat(quote.getTotal_order_value()).isEqualTo(8.0);
+        verify(mockKafkaProducer, never()).sendMessage(any(Order.class));
+    }
+
+    @Test
+    void testMakeOrder_TotalMismatch() {
+        // Setup
+        final Order order = new Order("order_id", List.of(new OrderProduct("a", "name", "description", 1.0, 2)), 1.0,
+                LocalDate.of(2020, 1, 1), null, "delivery_address", "customer_name", "customer_email",
+                "customer_phone", false);
+        when(mockProductRepository.findAllById(List.of("a"))).thenReturn(List.of(new Product("a", "name", "description", 1.0, 10)));
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.makeOrder(order);
+
+        // Verify the results
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(((Order) result.getData()).getTotal_order_value()).isEqualTo(2.0);
+    }
+
+    @Test
+    void testMakeOrder_NegativeQuantity() {
+        // Setup
+        final Order order = new Order("order_id", List.of(new OrderProduct("a", "name", "description", 1.0, -2)), -2.0,
+                LocalDate.of(2020, 1, 1), null, "delivery_address", "customer_name", "customer_email",
+                "customer_phone", false);
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.makeOrder(order);
+
+        // Verify the results
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        verify(mockKafkaProducer, never()).sendMessage(any());
+    }
+
+    @Test
+    void testMakeOrder_UnknownProduct() {
+        // Setup
+        final Order order = new Order("order_id", List.of(new OrderProduct("a", "name", "description", 1.0, 2)), 2.0,
+                LocalDate.of(2020, 1, 1), null, "delivery_address", "customer_name", "customer_email",
+                "customer_phone", false);
+        when(mockProductRepository.findAllById(List.of("a"))).thenReturn(Collections.emptyList());
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.makeOrder(order);
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("99");
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void testReserveOrder() {
+        // Setup
+        final Order order = new Order("order_id",
+                List.of(new OrderProduct("a", "name", "description", 0.0, 2), new OrderProduct("b", "name", "description", 0.0, 1),
+                        new OrderProduct("a", "name", "description", 0.0, 1)), 0.0, LocalDate.of(2020, 1, 1),
+                LocalDate.of(2020, 1, 1), "delivery_address", "customer_name", "customer_email", "customer_phone",
+                false);
+        when(mockProductRepository.findAllById(any())).thenReturn(
+                List.of(new Product("a", "name", "description", 0.0, 3), new Product("b", "name", "description", 0.0, 1)));
+        when(mockProductRepository.reserveAll(Map.of("a", 3, "b", 1))).thenReturn(Optional.empty());
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.reserveOrder(order);
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("00");
+        assertThat(result.getData()).isEqualTo(List.of(new CheckedProduct("a", 2, 3, true),
+                new CheckedProduct("b", 1, 1, true), new CheckedProduct("a", 1, 3, true)));
+    }
+
+    @Test
+    void testReserveOrder_InsufficientStock() {
+        // Setup
+        final Order order = new Order("order_id",
+                List.of(new OrderProduct("a", "name", "description", 0.0, 2), new OrderProduct("b", "name", "description", 0.0, 1)),
+                0.0, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 1), "delivery_address", "customer_name",
+                "customer_email", "customer_phone", false);
+        when(mockProductRepository.findAllById(any())).thenReturn(List.of(new Product("a", "name", "description", 0.0, 1)));
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.reserveOrder(order);
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("99");
+        assertThat(result.getData()).isEqualTo(List.of(new CheckedProduct("a", 2, 1, false),
+                new CheckedProduct("b", 1, 0, false)));
+        verify(mockProductRepository, never()).reserveAll(any());
+    }
+
+    @Test
+    void testReserveOrder_ProductRepositoryReserveAllReturnsShortItem() {
+        // Setup
+        final Order order = new Order("order_id",
+                List.of(new OrderProduct("a", "name", "description", 0.0, 2), new OrderProduct("b", "name", "description", 0.0, 1)),
+                0.0, LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 1), "delivery_address", "customer_name",
+                "customer_email", "customer_phone", false);
+        when(mockProductRepository.findAllById(any())).thenReturn(
+                List.of(new Product("a", "name", "description", 0.0, 2), new Product("b", "name", "description", 0.0, 1)));
+        when(mockProductRepository.reserveAll(any())).thenReturn(Optional.of("b"));
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.reserveOrder(order);
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("99");
+        assertThat(result.getData()).isEqualTo(List.of(new CheckedProduct("a", 2, 2, true),
+                new CheckedProduct("b", 1, 1, false)));
+    }
+
+    @Test
+    void testFulfilOrders() {
+        // Setup
+        final List<Order> orders = List.of(
+                new Order("first", List.of(new OrderProduct("a", "name", "description", 0.0, 2),
+                        new OrderProduct("b", "name", "description", 0.0, 1)), 0.0, LocalDate.of(2020, 1, 1), null,
+                        "delivery_address", "customer_name", "customer_email", "customer_phone", false),
+                new Order("second", List.of(new OrderProduct("a", "name", "description", 0.0, 2)), 0.0,
+                        LocalDate.of(2020, 1, 1), null, "delivery_address", "customer_name", "customer_email",
+                        "customer_phone", false),
+                new Order("third", List.of(new OrderProduct("a", "name", "description", 0.0, 1)), 0.0,
+                        LocalDate.of(2020, 1, 1), null, "delivery_address", "customer_name", "customer_email",
+                        "customer_phone", false));
+        when(mockProductRepository.findAllById(any())).thenReturn(
+                List.of(new Product("a", "name", "description", 0.0, 3), new Product("b", "name", "description", 0.0, 5)));
+        when(mockProductRepository.reserveAll(Map.of("a", 3, "b", 1))).thenReturn(Optional.empty());
+
+        // Run the test
+        final List<OrderResult> result = productServiceImplUnderTest.fulfilOrders(orders);
+
+        // Verify the results
+        assertThat(result).extracting(OrderResult::isAccepted).containsExactly(true, false, true);
+        assertThat(result.get(1).getItems()).containsExactly(new CheckedProduct("a", 2, 1, false));
+        verify(mockProductRepository, times(1)).reserveAll(any());
+    }
+
+    @Test
+    void testFulfilOrders_ProductRepositoryReserveAllReturnsShortItem() {
+        // Setup
+        final List<Order> orders = List.of(
+                new Order("first", List.of(new OrderProduct("a", "name", "description", 0.0, 1)), 0.0,
+                        LocalDate.of(2020, 1, 1), null, "delivery_address", "customer_name", "customer_email",
+                        "customer_phone", false),
+                new Order("second", List.of(new OrderProduct("b", "name", "description", 0.0, 1)), 0.0,
+                        LocalDate.of(2020, 1, 1), null, "delivery_address", "customer_name", "customer_email",
+                        "customer_phone", false));
+        when(mockProductRepository.findAllById(any())).thenReturn(
+                List.of(new Product("a", "name", "description", 0.0, 1), new Product("b", "name", "description", 0.0, 1)));
+        when(mockProductRepository.reserveAll(Map.of("a", 1, "b", 1))).thenReturn(Optional.of("b"));
+        when(mockProductRepository.reserveAll(Map.of("a", 1))).thenReturn(Optional.empty());
+        when(mockProductRepository.reserveAll(Map.of("b", 1))).thenReturn(Optional.of("b"));
+
+        // Run the test
+        final List<OrderResult> result = productServiceImplUnderTest.fulfilOrders(orders);
+
+        // Verify the results
+        assertThat(result).extracting(OrderResult::isAccepted).containsExactly(true, false);
+    }
+
+    @Test
+    void testFulfilOrders_OrderWriteFailsAfterEarlierOrdersWereTaken() {
+        // Setup
+        final List<Order> orders = List.of(
+                new Order("first", List.of(new OrderProduct("a", "name", "description", 0.0, 1)), 0.0,
+                        LocalDate.of(2020, 1, 1), null, "delivery_address", "customer_name", "customer_email",
+                        "customer_phone", false),
+                new Order("second", List.of(new OrderProduct("b", "name", "description", 0.0, 1)), 0.0,
+                        LocalDate.of(2020, 1, 1), null, "delivery_address", "customer_name", "customer_email",
+                        "customer_phone", false));
+        when(mockProductRepository.findAllById(any())).thenReturn(
+                List.of(new Product("a", "name", "description", 0.0, 1), new Product("b", "name", "description", 0.0, 1)));
+        when(mockProductRepository.reserveAll(Map.of("a", 1, "b", 1))).thenReturn(Optional.of("b"));
+        when(mockProductRepository.reserveAll(Map.of("a", 1))).thenReturn(Optional.empty());
+        when(mockProductRepository.reserveAll(Map.of("b", 1))).thenThrow(new IllegalStateException("timed out"));
+
+        // Run the test
+        final List<OrderResult> result = productServiceImplUnderTest.fulfilOrders(orders);
+
+        // Verify the results
+        assertThat(result).extracting(OrderResult::isAccepted).containsExactly(true, false);
+        assertThat(result.get(1).getMessage()).contains("timed out");
+    }
+
+    @Test
+    void testIngest() {
+        // Setup
+        final List<Product> products = List.of(new Product("a", "name", "description", 1.0, 1),
+                new Product(null, "name", "description", 1.0, 2), new Product("c", "name", "description", 1.0, 3));
+        when(mockProductRepository.upsertAll(eq(0), any())).thenReturn(new IngestChunkResult(0, 1, 1, 0, List.of()));
+        when(mockProductRepository.upsertAll(eq(1), any())).thenReturn(new IngestChunkResult(1, 0, 0, 1, List.of("c")));
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.ingest(products.iterator());
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("00");
+        assertThat(result.getData()).isEqualTo(List.of(new IngestChunkResult(0, 1, 1, 0, List.of()),
+                new IngestChunkResult(1, 0, 0, 1, List.of("c"))));
+        assertThat(products.get(1).getProduct_id()).isNotNull();
+    }
+
+    @Test
+    void testIngest_MalformedProduct() {
+        // Setup
+        final Iterator<Product> products = new Iterator<>() {
+            private boolean first = true;
+
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Product next() {
+                if (!first) throw new IllegalStateException("Unexpected token");
+                first = false;
+                return new Product("a", "name", "description", 1.0, 1);
+            }
+        };
+        when(mockProductRepository.upsertAll(eq(0), any())).thenReturn(new IngestChunkResult(0, 1, 0, 0, List.of()));
+
+        // Run the test
+        final GenericResponseDTO result = productServiceImplUnderTest.ingest(products);
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("99");
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(result.getData()).isEqualTo(List.of(new IngestChunkResult(0, 1, 0, 0, List.of())));
+    }
 }
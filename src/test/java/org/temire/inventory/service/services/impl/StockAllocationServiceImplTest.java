@@ -0,0 +1,182 @@
+package org.temire.inventory.service.services.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.temire.inventory.service.cache.ProductCache;
+import org.temire.inventory.service.data.dto.CheckedProduct;
+import org.temire.inventory.service.data.dto.LocationAllocation;
+import org.temire.inventory.service.data.dto.OrderProduct;
+import org.temire.inventory.service.data.model.LocationStock;
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.data.model.Product;
+import org.temire.inventory.service.data.repositories.LocationStockRepository;
+import org.temire.inventory.service.data.repositories.ProductRepository;
+import org.temire.inventory.service.data.repositories.StockLocationRepository;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockAllocationServiceImplTest {
+
+    @Mock
+    private LocationStockRepository mockLocationStockRepository;
+    @Mock
+    private StockLocationRepository mockStockLocationRepository;
+    @Mock
+    private ProductRepository mockProductRepository;
+
+    private StockAllocationServiceImpl stockAllocationServiceImplUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        stockAllocationServiceImplUnderTest = new StockAllocationServiceImpl(mockLocationStockRepository,
+                mockStockLocationRepository, mockProductRepository, new ProductCache(100, Duration.ofMinutes(1)),
+                List.of(new SplitAllocationStrategy(), new MostStockedLocationStrategy(), new NearestLocationStrategy()),
+                "split");
+    }
+
+    private static Order order(int quantity) {
+        return new Order("order_id", List.of(new OrderProduct("a", "name", "description", 1.0, quantity)), 1.0,
+                LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 1), "delivery_address", "customer_name",
+                "customer_email", "customer_phone", false);
+    }
+
+    private static List<LocationStock> stock() {
+        return List.of(new LocationStock("a@x", "a", "x", 3), new LocationStock("a@y", "a", "y", 5));
+    }
+
+    @Test
+    void testAllocate() {
+        // Setup
+        when(mockLocationStockRepository.findAllByProductIds(any())).thenReturn(stock());
+        final List<LocationAllocation> plan = List.of(new LocationAllocation("a", "y", 5), new LocationAllocation("a", "x", 2));
+        when(mockLocationStockRepository.takeAll(plan)).thenReturn(Optional.empty());
+        when(mockProductRepository.reserveAll(Map.of("a", 7))).thenReturn(Optional.empty());
+
+        // Run the test
+        final GenericResponseDTO result = stockAllocationServiceImplUnderTest.allocate(order(7), null, null, null);
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("00");
+        assertThat(result.getData()).isEqualTo(plan);
+        verify(mockLocationStockRepository, never()).giveBackAll(any());
+    }
+
+    @Test
+    void testAllocate_ProductShort() {
+        // Setup
+        when(mockLocationStockRepository.findAllByProductIds(any())).thenReturn(stock());
+        final List<LocationAllocation> plan = List.of(new LocationAllocation("a", "y", 5), new LocationAllocation("a", "x", 2));
+        when(mockLocationStockRepository.takeAll(plan)).thenReturn(Optional.empty());
+        when(mockProductRepository.reserveAll(Map.of("a", 7))).thenReturn(Optional.of("a"));
+
+        // Run the test
+        final GenericResponseDTO result = stockAllocationServiceImplUnderTest.allocate(order(7), null, null, null);
+
+        // Verify the results
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat((List<CheckedProduct>) result.getData()).extracting(CheckedProduct::isAvailable).containsExactly(false);
+        verify(mockLocationStockRepository).giveBackAll(plan);
+    }
+
+    @Test
+    void testAllocate_ProductWriteFails() {
+        // Setup
+        when(mockLocationStockRepository.findAllByProductIds(any())).thenReturn(stock());
+        final List<LocationAllocation> plan = List.of(new LocationAllocation("a", "y", 5), new LocationAllocation("a", "x", 2));
+        when(mockLocationStockRepository.takeAll(plan)).thenReturn(Optional.empty());
+        when(mockProductRepository.reserveAll(Map.of("a", 7))).thenThrow(new IllegalStateException("timed out"));
+
+        // Run the test
+        final GenericResponseDTO result = stockAllocationServiceImplUnderTest.allocate(order(7), null, null, null);
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("99");
+        verify(mockLocationStockRepository).giveBackAll(plan);
+    }
+
+    @Test
+    void testAllocate_CannotCover() {
+        // Setup
+        when(mockLocationStockRepository.findAllByProductIds(any())).thenReturn(stock());
+
+        // Run the test
+        final GenericResponseDTO result = stockAllocationServiceImplUnderTest.allocate(order(6), "most-stocked", null, null);
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("99");
+        assertThat((List<CheckedProduct>) result.getData()).extracting(CheckedProduct::isAvailable).containsExactly(false);
+        verify(mockLocationStockRepository, never()).takeAll(any());
+    }
+
+    @Test
+    void testAllocate_StockMoved() {
+        // Setup
+        when(mockLocationStockRepository.findAllByProductIds(any())).thenReturn(stock());
+        when(mockLocationStockRepository.takeAll(any())).thenReturn(Optional.of(new LocationAllocation("a", "y", 5)));
+
+        // Run the test
+        final GenericResponseDTO result = stockAllocationServiceImplUnderTest.allocate(order(7), "split", null, null);
+
+        // Verify the results
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.CONFLICT);
+        verify(mockProductRepository, never()).reserveAll(any());
+    }
+
+    @Test
+    void testAllocate_UnknownStrategy() {
+        // Run the test
+        final GenericResponseDTO result = stockAllocationServiceImplUnderTest.allocate(order(1), "cheapest", null, null);
+
+        // Verify the results
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void testSetLocationStock() {
+        // Setup
+        when(mockProductRepository.existsById("a")).thenReturn(true);
+        when(mockStockLocationRepository.existsById("x")).thenReturn(true);
+        when(mockLocationStockRepository.setQuantity("a", "x", 10)).thenReturn(3);
+        when(mockProductRepository.incrementQuantity("a", 7)).thenReturn(Optional.of(new Product()));
+
+        // Run the test
+        final GenericResponseDTO result = stockAllocationServiceImplUnderTest.setLocationStock("a", "x", 10);
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("00");
+        verify(mockLocationStockRepository, never()).restoreQuantity(any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void testSetLocationStock_TotalFails() {
+        // Setup
+        when(mockProductRepository.existsById("a")).thenReturn(true);
+        when(mockStockLocationRepository.existsById("x")).thenReturn(true);
+        when(mockLocationStockRepository.setQuantity("a", "x", 10)).thenReturn(3);
+        when(mockProductRepository.incrementQuantity("a", 7)).thenThrow(new IllegalStateException("timed out"));
+
+        // Run the test
+        final GenericResponseDTO result = stockAllocationServiceImplUnderTest.setLocationStock("a", "x", 10);
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("99");
+        verify(mockLocationStockRepository).restoreQuantity("a", "x", 10, 3);
+    }
+}
@@ -0,0 +1,155 @@
+package org.temire.inventory.service.services.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.temire.inventory.service.cache.ProductCache;
+import org.temire.inventory.service.data.dto.OrderProduct;
+import org.temire.inventory.service.data.model.Order;
+import org.temire.inventory.service.data.model.Product;
+import org.temire.inventory.service.data.model.StockHold;
+import org.temire.inventory.service.data.repositories.ProductRepository;
+import org.temire.inventory.service.data.repositories.StockHoldRepository;
+import org.temire.inventory.service.rest.response.GenericResponseDTO;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StockHoldServiceImplTest {
+
+    @Mock
+    private ProductRepository mockProductRepository;
+    @Mock
+    private StockHoldRepository mockStockHoldRepository;
+    @Mock
+    private HotStockLedger mockHotStockLedger;
+
+    private StockHoldServiceImpl stockHoldServiceImplUnderTest;
+
+    @BeforeEach
+    void setUp() {
+        stockHoldServiceImplUnderTest = new StockHoldServiceImpl(mockProductRepository, mockStockHoldRepository,
+                new ProductCache(100, Duration.ofMinutes(1)), mockHotStockLedger, new SimpleMeterRegistry(),
+                Duration.ofMinutes(15), Duration.ofHours(2), 1000);
+    }
+
+    private static Order order(int quantity) {
+        return new Order("order_id", List.of(new OrderProduct("a", "name", "description", 1.0, quantity)), 1.0,
+                LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 1), "delivery_address", "customer_name",
+                "customer_email", "customer_phone", false);
+    }
+
+    @Test
+    void testHold() {
+        // Setup
+        when(mockProductRepository.findAllById(any())).thenReturn(List.of(new Product("a", "name", "description", 1.0, 5)));
+        when(mockProductRepository.holdAll(Map.of("a", 2))).thenReturn(Optional.empty());
+        when(mockStockHoldRepository.insert(any(StockHold.class))).then(invocation -> invocation.getArgument(0));
+
+        // Run the test
+        final GenericResponseDTO result = stockHoldServiceImplUnderTest.hold(order(2), null);
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("00");
+        final StockHold hold = (StockHold) result.getData();
+        assertThat(hold.getItems()).extracting(OrderProduct::getProduct_id, OrderProduct::getQuantity)
+                .containsExactly(tuple("a", 2));
+        assertThat(Duration.between(hold.getCreated_at(), hold.getExpires_at())).isEqualTo(Duration.ofMinutes(15));
+    }
+
+    @Test
+    void testHold_InsufficientStock() {
+        // Setup
+        when(mockProductRepository.findAllById(any())).thenReturn(List.of(new Product("a", "name", "description", 1.0, 1)));
+
+        // Run the test
+        final GenericResponseDTO result = stockHoldServiceImplUnderTest.hold(order(2), null);
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("99");
+        verify(mockProductRepository, never()).holdAll(any());
+    }
+
+    @Test
+    void testHold_TtlTooLong() {
+        // Run the test
+        final GenericResponseDTO result = stockHoldServiceImplUnderTest.hold(order(2), Duration.ofDays(1));
+
+        // Verify the results
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.BAD_REQUEST);
+    }
+
+    @Test
+    void testConfirm() {
+        // Setup
+        final StockHold hold = new StockHold("hold_id", List.of(new OrderProduct("a", null, null, 0, 2)),
+                Instant.now(), Instant.now().plusSeconds(60));
+        when(mockStockHoldRepository.takeUnexpired(eq("hold_id"), any(Instant.class))).thenReturn(Optional.of(hold));
+
+        // Run the test
+        final GenericResponseDTO result = stockHoldServiceImplUnderTest.confirm("hold_id");
+
+        // Verify the results
+        assertThat(result.getCode()).isEqualTo("00");
+        verify(mockProductRepository).confirmHeld(Map.of("a", 2));
+        verify(mockProductRepository, never()).releaseHeld(any());
+    }
+
+    @Test
+    void testConfirm_PastExpiry() {
+        // Setup
+        when(mockStockHoldRepository.takeUnexpired(eq("hold_id"), any(Instant.class))).thenReturn(Optional.empty());
+
+        // Run the test
+        final GenericResponseDTO result = stockHoldServiceImplUnderTest.confirm("hold_id");
+
+        // Verify the results
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.NOT_FOUND);
+        verify(mockProductRepository, never()).confirmHeld(any());
+    }
+
+    @Test
+    void testRelease_AlreadyExpired() {
+        // Setup
+        when(mockStockHoldRepository.take("hold_id")).thenReturn(Optional.empty());
+
+        // Run the test
+        final GenericResponseDTO result = stockHoldServiceImplUnderTest.release("hold_id");
+
+        // Verify the results
+        assertThat(result.getStatus()).isEqualTo(HttpStatus.NOT_FOUND);
+        verify(mockProductRepository, never()).releaseHeld(any());
+    }
+
+    @Test
+    void testSweep() {
+        // Setup
+        final StockHold hold = new StockHold("hold_id", List.of(new OrderProduct("a", null, null, 0, 2)),
+                Instant.now().minusSeconds(120), Instant.now().minusSeconds(60));
+        when(mockStockHoldRepository.findExpiredBy(any(Instant.class), any())).thenReturn(List.of(hold));
+        when(mockStockHoldRepository.take("hold_id")).thenReturn(Optional.of(hold));
+
+        // Run the test
+        stockHoldServiceImplUnderTest.sweep();
+
+        // Verify the results
+        verify(mockProductRepository).releaseHeld(Map.of("a", 2));
+    }
+}